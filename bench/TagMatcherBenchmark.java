@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares TagMatcher with the contains() loop that release tags were matched with before, for growing numbers of
+ * tags. Not part of the program; build and run it from the project directory:
+ *
+ * <pre>
+ * javac -cp src -d build/bench bench/TagMatcherBenchmark.java
+ * java -cp build/bench TagMatcherBenchmark
+ * </pre>
+ */
+class TagMatcherBenchmark {
+	private static final int TEXT_LENGTH = 10 * 1024; // About the size of a long changelog.
+	private static final int[] TAG_COUNTS = { 10, 100, 1000 };
+	private static final int WARMUP_ROUNDS = 200;
+	private static final int ROUNDS = 1000;
+
+	public static void main(String[] args) {
+		Random random = new Random(1);
+		String text = createText(random);
+		System.out.printf("Text length: %d characters%n", text.length());
+		System.out.printf("%6s %16s %16s%n", "Tags", "contains() [ms]", "TagMatcher [ms]");
+
+		for (int tagCount : TAG_COUNTS) {
+			ArrayList<String> tags = new ArrayList<>();
+			int[] tagIndexes = new int[tagCount];
+			for (int i = 0; i < tagCount; i++) {
+				tags.add(createWord(random, 3 + random.nextInt(6)));
+				tagIndexes[i] = i;
+			}
+			TagMatcher matcher = new TagMatcher(tags, tagIndexes, tagCount);
+
+			// Both must find the same tags; this also keeps the JIT from dropping the work.
+			boolean[] expected = matchContains(text, tags);
+			boolean[] actual = matcher.match(text);
+			for (int i = 0; i < tagCount; i++)
+				if (expected[i] != actual[i])
+					throw new IllegalStateException("Results differ for tag \"" + tags.get(i) + "\"");
+
+			double containsTime = measure(() -> matchContains(text, tags));
+			double matcherTime = measure(() -> matcher.match(text));
+			System.out.printf("%6d %16.3f %16.3f%n", tagCount, containsTime, matcherTime);
+		}
+	}
+
+	// The previous algorithm: search the lower-cased text for each lower-cased tag.
+	private static boolean[] matchContains(String text, ArrayList<String> tags) {
+		String textLowerCase = text.toLowerCase();
+		boolean[] found = new boolean[tags.size()];
+		for (int i = 0; i < tags.size(); i++)
+			found[i] = textLowerCase.contains(tags.get(i).toLowerCase());
+		return found;
+	}
+
+	// Returns the average time of a run in milliseconds.
+	private static double measure(Runnable run) {
+		for (int i = 0; i < WARMUP_ROUNDS; i++)
+			run.run();
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++)
+			run.run();
+		return (System.nanoTime() - start) / 1e6 / ROUNDS;
+	}
+
+	// Creates changelog-like text: random words separated by spaces and line breaks.
+	private static String createText(Random random) {
+		StringBuilder sb = new StringBuilder(TEXT_LENGTH);
+		while (sb.length() < TEXT_LENGTH)
+			sb.append(createWord(random, 2 + random.nextInt(8))).append(random.nextInt(10) == 0 ? '\n' : ' ');
+		return sb.toString();
+	}
+
+	private static String createWord(Random random, int length) {
+		char[] word = new char[length];
+		for (int i = 0; i < length; i++)
+			word[i] = (char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(26));
+		return new String(word);
+	}
+}
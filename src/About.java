@@ -24,6 +24,10 @@ public class About extends Dialog {
 		Runtime.getRuntime().gc();
 		long memoryUsage = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024 * 1024);
 		createLabel(shell, SWT.LEFT, "RAM usage: " + memoryUsage + " MiB");
+		long pkgCount = PkgReader.getTotalPkgCount();
+		if (pkgCount != 0)
+			createLabel(shell, SWT.LEFT, String.format("PKG data read this session: %d KiB (%d KiB per PKG)",
+				PkgReader.getTotalBytesRead() / 1024, PkgReader.getTotalBytesRead() / 1024 / pkgCount));
 		createLink(shell, "Settings and database location: <a>" + GUI.dataDirectory + "</a>",
 			e -> Program.launch(GUI.dataDirectory));
 		createLink(shell, "Project homepage: <a>https://github.com/hippie68/ps4-pkg-manager</a>",
@@ -1,4 +1,4 @@
-import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -164,21 +164,12 @@ public class AddFtpFilesDialog {
 							}
 						});
 
-						// First determine the required data's size...
+						// Only the required data is downloaded, as the PKG is parsed.
 						if (tabContent.isDisposed() || ftpThread.isInterrupted())
 							throw new InterruptedException();
-						byte[] pkgHeader = client.downloadByteArray(pkgFile, 0x1000);
-						ByteBuffer bb = ByteBuffer.wrap(pkgHeader);
-						long body_offset = bb.getLong(0x20);
-						long body_size = bb.getLong(0x28);
-						int len = (int) (body_offset + body_size);
-
-						// ...then download the data.
-						if (tabContent.isDisposed() || ftpThread.isInterrupted())
-							throw new InterruptedException();
-						byte[] pkgBody = client.downloadByteArray(pkgFile, len);
+						ReadableByteChannel channel = client.openChannel(pkgFile);
 						try {
-							pkg = new PS4PKG(pkgBody);
+							pkg = new PS4PKG(channel);
 
 							String prefix = "ftp://" + ip + ':' + port;
 							pkg.path = prefix + pkgFile;
@@ -0,0 +1,659 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Stores the PKGs of all tabs in a compact, versioned binary file (the "catalog") that is loaded in a single sequential
+ * pass over an in-memory buffer. Strings that repeat across PKGs (directories, entry file names, param.sfo names and
+ * values) are stored only once, in a dictionary. Digests are stored as raw bytes.
+ * <p>
+ * Layout (big-endian): magic number, format version, string dictionary, tab count, then for each tab its PKG count
+ * followed by its PKG records. Each record is prefixed by its length, so that fields can be appended to records in
+ * later format versions. Older catalogs are migrated forward while being read; the next save writes the current
+ * version.
+ * <p>
+ * A record's heavy sections (entries, digests and changelog) come last, prefixed by their length. They are skipped
+ * while reading and only loaded on demand, from the catalog file that is kept open for that purpose.
+ */
+class Catalog {
+	static final int MAGIC = 0x504B4743; // "PKGC"
+	static final int VERSION = 8;
+	private static final int DIGEST_SIZE = PS4PKG.DIGEST_SIZE;
+	private static final int NULL = -1; // Used instead of a string's length or index and instead of an array's length.
+	private static final int REFERENCE = -2; // Used instead of the sections' length by records that refer to them.
+
+	private Catalog() {
+	}
+
+	/** Where a PKG's heavy sections are stored in a catalog file. */
+	record Location(FileChannel channel, String[] strings, long offset, int length) {
+	}
+
+	// The open channel of the catalog file that the PKGs' sections are loaded from. Guarded by Catalog.class.
+	private static FileChannel sectionsChannel;
+
+	// Makes a channel the one that sections are loaded from, and closes the previous one. Its file has been replaced,
+	// and all PKGs that are still in a tab now have locations in the new file; other PKGs fall back to their PKG file.
+	private static synchronized void setSectionsChannel(FileChannel channel) {
+		FileChannel previous = sectionsChannel;
+		sectionsChannel = channel;
+		if (previous != null && previous != channel)
+			try {
+				previous.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+	}
+
+	// Writing -----------------------------------------------------------------------------------------------------
+
+	// Maps strings to their dictionary indexes.
+	private static class Dictionary {
+		private final HashMap<String, Integer> indexes = new HashMap<>();
+		private final ArrayList<String> strings = new ArrayList<>();
+
+		int indexOf(String s) {
+			if (s == null)
+				return NULL;
+			return indexes.computeIfAbsent(s, key -> {
+				strings.add(key);
+				return strings.size() - 1;
+			});
+		}
+	}
+
+	/**
+	 * Writes the PKGs of all tabs to a new catalog file. The file is replaced atomically, so that an interrupted write
+	 * does not destroy the previous catalog.
+	 *
+	 * @param tabs each tab's PKGs, in table order
+	 */
+	static void write(Path path, PS4PKG[][] tabs) throws IOException {
+		// Encode all records first, as they determine the dictionary's content. The sections' offsets are relative to
+		// the first record until the dictionary's size is known.
+		Dictionary dictionary = new Dictionary();
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		DataOutputStream recordsOut = new DataOutputStream(records);
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream recordOut = new DataOutputStream(record);
+		ArrayList<PS4PKG> storedPkgs = new ArrayList<>();
+		ArrayList<long[]> sectionsPositions = new ArrayList<>(); // Offset and length.
+		for (PS4PKG[] pkgs : tabs)
+			for (PS4PKG pkg : pkgs) {
+				record.reset();
+				int[] sections = writeRecord(recordOut, pkg, dictionary);
+				recordsOut.writeInt(record.size());
+				if (sections != null) {
+					storedPkgs.add(pkg);
+					sectionsPositions.add(new long[] { records.size() + sections[0], sections[1] });
+				}
+				record.writeTo(recordsOut);
+			}
+
+		Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+		long recordsOffset;
+		try (DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			out.writeInt(dictionary.strings.size());
+			for (String s : dictionary.strings)
+				writeString(out, s);
+
+			out.writeInt(tabs.length);
+			for (PS4PKG[] pkgs : tabs)
+				out.writeInt(pkgs.length);
+			recordsOffset = out.size();
+			records.writeTo(out);
+		}
+		Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		// From now on, the PKGs' sections can be loaded from the new file.
+		if (storedPkgs.isEmpty()) {
+			setSectionsChannel(null);
+			return;
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		String[] strings = dictionary.strings.toArray(new String[0]);
+		for (int i = 0; i < storedPkgs.size(); i++) {
+			long[] position = sectionsPositions.get(i);
+			storedPkgs.get(i).setSectionsLocation(
+				new Location(channel, strings, recordsOffset + position[0], (int) position[1]));
+		}
+		setSectionsChannel(channel);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(NULL);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	// Writes a string's dictionary index, or, without dictionary, the string itself.
+	private static void writeString(DataOutputStream out, String s, Dictionary dictionary) throws IOException {
+		if (dictionary == null)
+			writeString(out, s);
+		else
+			out.writeInt(dictionary.indexOf(s));
+	}
+
+	private static void writeDigest(DataOutputStream out, byte[] digest) throws IOException {
+		out.write(digest == null ? new byte[DIGEST_SIZE] : digest);
+	}
+
+	/**
+	 * Writes a PKG record.
+	 *
+	 * @return the offset of the record's heavy sections, relative to the record, and their length; null if the PKG
+	 *         has none
+	 */
+	private static int[] writeRecord(DataOutputStream out, PS4PKG pkg, Dictionary dictionary) throws IOException {
+		int start = out.size();
+		writeString(out, pkg.path);
+		writeString(out, pkg.directory, dictionary);
+		writeString(out, pkg.filename);
+		out.writeByte(pkg.isFake);
+
+		var header = pkg.header;
+		out.writeInt(header.type);
+		out.writeInt(header.file_count);
+		out.writeInt(header.entry_count);
+		out.writeShort(header.sc_entry_count);
+		out.writeInt(header.table_offset);
+		out.writeInt(header.entry_data_size);
+		out.writeLong(header.body_offset);
+		out.writeLong(header.body_size);
+		out.writeLong(header.content_offset);
+		out.writeLong(header.content_size);
+		writeString(out, header.content_id);
+		out.writeInt(header.drm_type);
+		out.writeInt(header.content_type);
+		out.writeInt(header.content_flags);
+		out.writeInt(header.promote_size);
+		out.writeInt(header.version_date);
+		out.writeInt(header.version_hash);
+		out.writeInt(header.iro_tag);
+		out.writeInt(header.drm_type_version);
+		writeDigest(out, header.digest_entries_1);
+		writeDigest(out, header.digest_entries_2);
+		writeDigest(out, header.digest_table_digest);
+		writeDigest(out, header.digest_body_digest);
+		out.writeInt(header.pfs_image_count);
+		out.writeLong(header.pfs_image_flags);
+		out.writeLong(header.pfs_image_offset);
+		out.writeLong(header.pfs_image_size);
+		out.writeLong(header.mount_image_offset);
+		out.writeLong(header.mount_image_size);
+		out.writeLong(header.pkg_size);
+		out.writeInt(header.pfs_signed_size);
+		out.writeInt(header.pfs_cache_size);
+		writeDigest(out, header.pfs_image_digest);
+		writeDigest(out, header.pfs_signed_digest);
+		out.writeLong(header.pfs_split_size_nth_0);
+		out.writeLong(header.pfs_split_size_nth_1);
+		writeDigest(out, header.pkg_digest);
+
+		if (pkg.params == null)
+			out.writeInt(NULL);
+		else {
+			out.writeInt(pkg.params.length);
+			for (int i = 0; i < pkg.params.length; i++) {
+				writeString(out, pkg.params[i].name, dictionary);
+				writeString(out, pkg.params[i].value, dictionary);
+			}
+		}
+
+		writeString(out, pkg.changelogVersion);
+		out.writeBoolean(pkg.hasChangelog);
+		out.writeBoolean(pkg.isBackportChangelog);
+		if (pkg.compatibilityDigest == null)
+			out.writeInt(NULL);
+		else {
+			out.writeInt(pkg.compatibilityDigest.length);
+			out.write(pkg.compatibilityDigest);
+		}
+		PS4PKG.ChangelogReleases changelogReleases = pkg.changelogReleases;
+		if (changelogReleases == null)
+			out.writeInt(NULL);
+		else {
+			out.writeInt(changelogReleases.releases().length);
+			out.writeInt(changelogReleases.releasesHash());
+			for (String release : changelogReleases.releases())
+				writeString(out, release, dictionary);
+		}
+		out.writeByte(pkg.integrity);
+		int[] corruptEntries = pkg.corruptEntries;
+		if (corruptEntries == null)
+			out.writeInt(NULL);
+		else {
+			out.writeInt(corruptEntries.length);
+			for (int index : corruptEntries)
+				out.writeInt(index);
+		}
+		out.writeLong(pkg.fileSize);
+		out.writeLong(pkg.modificationTime);
+		writeString(out, pkg.fileKey);
+		PkgSummary summary = pkg.getSummary();
+		writeString(out, summary.titleID(), dictionary);
+		out.writeByte(summary.region().ordinal());
+		out.writeByte(summary.type().ordinal());
+		writeString(out, summary.versionText(), dictionary);
+		out.writeInt(summary.version());
+		out.writeInt(summary.sdk());
+		out.writeInt(summary.firmware());
+		out.writeBoolean(summary.isBackport());
+		out.writeLong(summary.size());
+		writeString(out, summary.checksum());
+
+		// Records without a dictionary (see encodeRecord()) refer to sections that are stored in the current catalog.
+		Location location = pkg.getSectionsLocation();
+		if (dictionary == null && location != null && isCurrent(location)) {
+			out.writeInt(REFERENCE);
+			out.writeLong(location.offset());
+			out.writeInt(location.length());
+			return null;
+		}
+
+		// Sections that can't be loaded are dropped, which makes the PKG header-only, to be parsed again.
+		PkgSections sections = pkg.getSections(false);
+		if (sections == null) {
+			out.writeInt(NULL);
+			return null;
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		writeSections(new DataOutputStream(buffer), sections, dictionary);
+		out.writeInt(buffer.size());
+		int sectionsStart = out.size();
+		buffer.writeTo(out);
+		return new int[] { sectionsStart - start, buffer.size() };
+	}
+
+	private static void writeSections(DataOutputStream out, PkgSections sections, Dictionary dictionary)
+		throws IOException {
+		PS4PKGEntries entries = sections.entries();
+		out.writeInt(entries.count());
+		for (int i = 0; i < entries.count(); i++) {
+			out.writeInt(entries.ids[i]);
+			out.writeInt(entries.flags1[i]);
+			out.writeInt(entries.flags2[i]);
+			out.writeInt(entries.offsets[i]);
+			out.writeInt(entries.sizes[i]);
+			writeString(out, entries.filenames[i], dictionary);
+		}
+
+		out.writeInt(sections.digests().length / DIGEST_SIZE);
+		out.write(sections.digests());
+
+		writeString(out, sections.changelog());
+	}
+
+	// Reading -----------------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads a catalog file.
+	 *
+	 * @return each tab's PKGs, in table order
+	 * @throws IOException if the file is not a catalog, is damaged, or was written by a newer program version
+	 */
+	static PS4PKG[][] read(Path path) throws IOException {
+		// The channel stays open for loading the PKGs' sections.
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer bb = readFully(channel);
+			if (bb.getInt() != MAGIC)
+				throw new IOException("Not a PKG catalog: " + path);
+			int version = bb.getInt();
+			if (version < 1 || version > VERSION)
+				throw new IOException("Unsupported PKG catalog version: " + version);
+
+			String[] strings = new String[bb.getInt()];
+			for (int i = 0; i < strings.length; i++)
+				strings[i] = readString(bb);
+
+			PS4PKG[][] tabs = new PS4PKG[bb.getInt()][];
+			int recordCount = 0;
+			for (int i = 0; i < tabs.length; i++) {
+				tabs[i] = new PS4PKG[bb.getInt()];
+				recordCount += tabs[i].length;
+			}
+
+			// Locate all records first, so that they can be decoded in parallel. Each record is decoded from its own
+			// slice, which also skips fields that this version does not know about.
+			ByteBuffer[] records = new ByteBuffer[recordCount];
+			long[] recordOffsets = new long[recordCount];
+			for (int i = 0; i < records.length; i++) {
+				int length = bb.getInt();
+				recordOffsets[i] = bb.position();
+				records[i] = bb.slice(bb.position(), length);
+				bb.position(bb.position() + length);
+			}
+			PS4PKG[] pkgs = new PS4PKG[recordCount];
+			IntStream.range(0, recordCount).parallel()
+				.forEach(i -> pkgs[i] = readRecord(records[i], version, strings, channel, recordOffsets[i]));
+
+			for (int i = 0, offset = 0; i < tabs.length; offset += tabs[i].length, i++)
+				System.arraycopy(pkgs, offset, tabs[i], 0, tabs[i].length);
+			setSectionsChannel(channel);
+			return tabs;
+		} catch (RuntimeException e) { // E.g. BufferUnderflowException.
+			channel.close();
+			throw new IOException("Damaged PKG catalog: " + path, e);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads a whole file into a heap buffer. Files are never mapped, because on Windows a mapped file can't be replaced
+	 * or truncated until the mapping has been garbage-collected.
+	 */
+	static ByteBuffer readFully(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("File too large: " + size + " bytes");
+		ByteBuffer bb = ByteBuffer.allocate((int) size);
+		while (bb.hasRemaining())
+			if (channel.read(bb, bb.position()) == -1)
+				break;
+		return bb.flip();
+	}
+
+	/** Returns a catalog file's format version. */
+	static int readVersion(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer bb = ByteBuffer.allocate(8);
+			while (bb.hasRemaining())
+				if (channel.read(bb) == -1)
+					throw new EOFException("Not a PKG catalog: " + path);
+			if (bb.getInt(0) != MAGIC)
+				throw new IOException("Not a PKG catalog: " + path);
+			return bb.getInt(4);
+		}
+	}
+
+	private static String readString(ByteBuffer bb) {
+		int length = bb.getInt();
+		if (length == NULL)
+			return null;
+		byte[] bytes = new byte[length];
+		bb.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Reads a string via its dictionary index, or, without dictionary, the string itself.
+	private static String readString(ByteBuffer bb, String[] strings) {
+		if (strings == null)
+			return readString(bb);
+		int index = bb.getInt();
+		return index == NULL ? null : strings[index];
+	}
+
+	private static byte[] readDigest(ByteBuffer bb) {
+		byte[] digest = new byte[DIGEST_SIZE];
+		bb.get(digest);
+		return digest;
+	}
+
+	// Migrations: fields that are added in later format versions must only be read if version is high enough;
+	// otherwise they must be initialized with sensible defaults.
+	// If channel is null, the heavy sections are decoded right away; otherwise only their location is remembered.
+	private static PS4PKG readRecord(ByteBuffer bb, int version, String[] strings, FileChannel channel,
+		long recordOffset) {
+		PS4PKG pkg = new PS4PKG();
+		pkg.path = readString(bb);
+		pkg.directory = readString(bb, strings);
+		pkg.filename = readString(bb);
+		pkg.isFake = bb.get();
+
+		var header = pkg.header;
+		header.type = bb.getInt();
+		header.file_count = bb.getInt();
+		header.entry_count = bb.getInt();
+		header.sc_entry_count = bb.getShort();
+		header.table_offset = bb.getInt();
+		header.entry_data_size = bb.getInt();
+		header.body_offset = bb.getLong();
+		header.body_size = bb.getLong();
+		header.content_offset = bb.getLong();
+		header.content_size = bb.getLong();
+		header.content_id = readString(bb);
+		header.drm_type = bb.getInt();
+		header.content_type = bb.getInt();
+		header.content_flags = bb.getInt();
+		header.promote_size = bb.getInt();
+		header.version_date = bb.getInt();
+		header.version_hash = bb.getInt();
+		header.iro_tag = bb.getInt();
+		header.drm_type_version = bb.getInt();
+		header.digest_entries_1 = readDigest(bb);
+		header.digest_entries_2 = readDigest(bb);
+		header.digest_table_digest = readDigest(bb);
+		header.digest_body_digest = readDigest(bb);
+		header.pfs_image_count = bb.getInt();
+		header.pfs_image_flags = bb.getLong();
+		header.pfs_image_offset = bb.getLong();
+		header.pfs_image_size = bb.getLong();
+		header.mount_image_offset = bb.getLong();
+		header.mount_image_size = bb.getLong();
+		header.pkg_size = bb.getLong();
+		header.pfs_signed_size = bb.getInt();
+		header.pfs_cache_size = bb.getInt();
+		header.pfs_image_digest = readDigest(bb);
+		header.pfs_signed_digest = readDigest(bb);
+		header.pfs_split_size_nth_0 = bb.getLong();
+		header.pfs_split_size_nth_1 = bb.getLong();
+		header.pkg_digest = readDigest(bb);
+
+		if (version < 2) { // The sections were stored inline, before the params, and nothing was derived from them.
+			PS4PKGEntries entries = readEntries(bb, strings);
+			byte[] digests = readDigests(bb);
+			readParams(bb, strings, pkg);
+			String changelog = readString(bb);
+			if (entries != null && digests != null)
+				pkg.setSections(new PkgSections(entries, digests, changelog));
+			return pkg;
+		}
+
+		readParams(bb, strings, pkg);
+
+		pkg.changelogVersion = readString(bb);
+		pkg.hasChangelog = bb.get() != 0;
+		pkg.isBackportChangelog = bb.get() != 0;
+		int compatibilityDigestLength = bb.getInt();
+		if (compatibilityDigestLength != NULL) {
+			pkg.compatibilityDigest = new byte[compatibilityDigestLength];
+			bb.get(pkg.compatibilityDigest);
+		}
+		PS4PKG.ChangelogReleases changelogReleases = null;
+		int releaseCount = bb.getInt();
+		if (releaseCount != NULL) {
+			int releasesHash = bb.getInt();
+			String[] releases = new String[releaseCount];
+			for (int i = 0; i < releaseCount; i++)
+				releases[i] = readString(bb, strings);
+			changelogReleases = new PS4PKG.ChangelogReleases(releasesHash, releases);
+		}
+		if (version >= 3)
+			pkg.integrity = bb.get();
+		if (version >= 4) {
+			int corruptEntryCount = bb.getInt();
+			if (corruptEntryCount != NULL) {
+				pkg.corruptEntries = new int[corruptEntryCount];
+				for (int i = 0; i < corruptEntryCount; i++)
+					pkg.corruptEntries[i] = bb.getInt();
+			}
+		}
+		if (version >= 5) { // Older PKGs stay unknown, so that they are parsed again once.
+			pkg.fileSize = bb.getLong();
+			pkg.modificationTime = bb.getLong();
+			pkg.fileKey = readString(bb);
+		}
+		PkgSummary summary = null;
+		if (version >= 7) // Older PKGs compute their summary when it is needed first.
+			summary = new PkgSummary(readString(bb, strings), PkgSummary.Region.values()[bb.get()],
+				PkgSummary.Type.values()[bb.get()], readString(bb, strings), bb.getInt(), bb.getInt(), bb.getInt(),
+				bb.get() != 0, bb.getLong(), readString(bb));
+		else if (version == 6) { // The summary lacks the version text; skip it.
+			readString(bb, strings);
+			bb.position(bb.position() + 2 + 3 * Integer.BYTES + 1 + Long.BYTES);
+			readString(bb);
+		}
+
+		int sectionsLength = bb.getInt();
+		if (sectionsLength == REFERENCE) // Resolved by resolveReference().
+			pkg.setSectionsLocation(new Location(null, null, bb.getLong(), bb.getInt()));
+		else if (sectionsLength != NULL) {
+			if (channel == null)
+				pkg.setSections(readSections(bb.slice(bb.position(), sectionsLength), strings));
+			else
+				pkg.setSectionsLocation(new Location(channel, strings, recordOffset + bb.position(), sectionsLength));
+		}
+		pkg.changelogReleases = changelogReleases; // After setSections(), which resets both.
+		pkg.summary = summary;
+		return pkg;
+	}
+
+	private static PS4PKGEntries readEntries(ByteBuffer bb, String[] strings) {
+		int entryCount = bb.getInt();
+		if (entryCount == NULL)
+			return null;
+		PS4PKGEntries entries = new PS4PKGEntries(entryCount);
+		for (int i = 0; i < entryCount; i++) {
+			entries.ids[i] = bb.getInt();
+			entries.flags1[i] = bb.getInt();
+			entries.flags2[i] = bb.getInt();
+			entries.offsets[i] = bb.getInt();
+			entries.sizes[i] = bb.getInt();
+			entries.filenames[i] = readString(bb, strings);
+		}
+		entries.buildIndex();
+		return entries;
+	}
+
+	private static byte[] readDigests(ByteBuffer bb) {
+		int digestCount = bb.getInt();
+		if (digestCount == NULL)
+			return null;
+		byte[] digests = new byte[digestCount * DIGEST_SIZE];
+		bb.get(digests);
+		return digests;
+	}
+
+	private static void readParams(ByteBuffer bb, String[] strings, PS4PKG pkg) {
+		int paramCount = bb.getInt();
+		if (paramCount == NULL)
+			return;
+		pkg.createParams(paramCount);
+		for (int i = 0; i < paramCount; i++) {
+			pkg.params[i].name = readString(bb, strings);
+			pkg.params[i].value = readString(bb, strings);
+		}
+	}
+
+	private static PkgSections readSections(ByteBuffer bb, String[] strings) {
+		PS4PKGEntries entries = readEntries(bb, strings);
+		byte[] digests = readDigests(bb);
+		return new PkgSections(entries, digests, readString(bb));
+	}
+
+	/** Loads a PKG's heavy sections from a catalog file. Thread-safe. */
+	static PkgSections readSections(Location location) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(location.length());
+		while (bb.hasRemaining())
+			if (location.channel().read(bb, location.offset() + bb.position()) == -1)
+				throw new EOFException("Truncated PKG catalog");
+		try {
+			return readSections(bb.flip(), location.strings());
+		} catch (RuntimeException e) {
+			throw new IOException("Damaged PKG catalog", e);
+		}
+	}
+
+	private static synchronized boolean isCurrent(Location location) {
+		return location.channel() == sectionsChannel;
+	}
+
+	/**
+	 * Encodes a single PKG record that does not depend on a dictionary, e.g. for the journal. If the PKG's sections are
+	 * stored in the current catalog, the record only refers to them; see resolveReference().
+	 */
+	static byte[] encodeRecord(PS4PKG pkg) throws IOException {
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		writeRecord(new DataOutputStream(record), pkg, null);
+		return record.toByteArray();
+	}
+
+	/** Decodes a record that was created by encodeRecord() of the specified format version. */
+	static PS4PKG decodeRecord(ByteBuffer bb, int version) {
+		return readRecord(bb, version, null, null, 0);
+	}
+
+	/**
+	 * Resolves the sections reference of a record that was decoded by decodeRecord(). A reference that doesn't match
+	 * the catalog's PKG of the same content (e.g. because the catalog has been rewritten since) is dropped, which makes
+	 * the PKG header-only, to be parsed again.
+	 *
+	 * @param storedPkgs the catalog's PKGs by their sections' offset
+	 */
+	static void resolveReference(PS4PKG pkg, Map<Long, PS4PKG> storedPkgs) {
+		Location reference = pkg.getSectionsLocation();
+		if (reference == null || reference.channel() != null)
+			return;
+		PS4PKG stored = storedPkgs.get(reference.offset());
+		Location location = stored == null ? null : stored.getSectionsLocation();
+		boolean isValid = location != null && location.length() == reference.length()
+			&& Arrays.equals(stored.header.pkg_digest, pkg.header.pkg_digest);
+		pkg.setSectionsLocation(isValid ? location : null);
+	}
+
+	// Conversion --------------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads the serialized PKG database of older program versions ("pkgs.db"), so that it can be converted to a
+	 * catalog.
+	 *
+	 * @param pkgCounts each tab's PKG count, as stored in the user interface settings of older program versions
+	 * @return each tab's PKGs; if the database is truncated, the PKGs that could be read
+	 */
+	static PS4PKG[][] readLegacyDatabase(Path path, int[] pkgCounts) throws IOException {
+		PS4PKG[][] tabs = new PS4PKG[pkgCounts.length][0];
+		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(path.toFile()))) {
+			for (int i = 0; i < tabs.length; i++) {
+				ArrayList<PS4PKG> pkgs = new ArrayList<>(pkgCounts[i]);
+				try {
+					for (int j = 0; j < pkgCounts[i]; j++)
+						pkgs.add((PS4PKG) ois.readObject());
+				} finally {
+					tabs[i] = pkgs.toArray(new PS4PKG[0]);
+				}
+			}
+		} catch (EOFException e) {
+			e.printStackTrace();
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Damaged PKG database: " + path, e);
+		}
+		return tabs;
+	}
+}
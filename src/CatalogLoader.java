@@ -0,0 +1,90 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Restores the previous session's PKGs without blocking the user interface thread. The catalog is read and the
+ * table rows are created in parallel, while the results are streamed into each tab in chunks, in their original
+ * order.
+ */
+public class CatalogLoader extends Thread {
+	private static final int CHUNK_SIZE = 1024; // PKGs per user interface update.
+
+	private final Supplier<PS4PKG[][]> source;
+	private final TabContent[] tabContents;
+	private final Runnable onFinished;
+	private final AtomicInteger restoredCount = new AtomicInteger();
+	private volatile int totalCount = -1; // Unknown until the catalog has been read.
+	private volatile boolean isFinished;
+
+	/**
+	 * @param source      returns each tab's PKGs; called on this thread
+	 * @param tabContents the tabs to restore, in catalog order
+	 * @param onFinished  called on the user interface thread after all tabs have been restored
+	 */
+	public CatalogLoader(Supplier<PS4PKG[][]> source, TabContent[] tabContents, Runnable onFinished) {
+		super("Catalog Loader");
+		this.source = source;
+		this.tabContents = tabContents;
+		this.onFinished = onFinished;
+		setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+		PS4PKG[][] pkgs = source.get();
+		int tabCount = Math.min(tabContents.length, pkgs.length);
+
+		// Restored PKGs keep their order and come before PKGs that are added in the meantime.
+		long[] firstStamps = new long[tabCount];
+		int total = 0;
+		for (int i = 0; i < tabCount; i++) {
+			firstStamps[i] = tabContents[i].reserveStamps(pkgs[i].length);
+			total += pkgs[i].length;
+		}
+		totalCount = total;
+
+		for (int i = 0; i < tabCount; i++) {
+			TabContent tabContent = tabContents[i];
+			PS4PKG[] tabPkgs = pkgs[i];
+			for (int start = 0; start < tabPkgs.length; start += CHUNK_SIZE) {
+				TableItemData[] chunk = new TableItemData[Math.min(CHUNK_SIZE, tabPkgs.length - start)];
+				int offset = start;
+				long firstStamp = firstStamps[i] + start;
+				IntStream.range(0, chunk.length).parallel().forEach(j -> {
+					PS4PKG pkg = tabPkgs[offset + j];
+					chunk[j] = tabContent.tableThread.createTableItemData(pkg, firstStamp + j);
+				});
+
+				Display.getDefault().asyncExec(() -> {
+					if (!tabContent.isDisposed())
+						tabContent.restoreTableItemData(chunk);
+					restoredCount.addAndGet(chunk.length);
+				});
+			}
+		}
+
+		// Runs after all chunks, as asynchronous runnables are executed in order.
+		Display.getDefault().asyncExec(() -> {
+			isFinished = true;
+			onFinished.run();
+		});
+	}
+
+	/** Returns true if all tabs have been restored. */
+	public boolean isFinished() {
+		return isFinished;
+	}
+
+	/** Returns the number of PKGs that have been restored so far. */
+	public int getRestoredCount() {
+		return restoredCount.get();
+	}
+
+	/** Returns the total number of PKGs to restore, or -1 if it is not known yet. */
+	public int getTotalCount() {
+		return totalCount;
+	}
+}
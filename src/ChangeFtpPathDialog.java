@@ -1,20 +1,14 @@
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
-import org.eclipse.swt.widgets.TableItem;
 
 public class ChangeFtpPathDialog {
-	public ChangeFtpPathDialog(Shell parent, GUI gui, TabContent tabContent, TableItem[] items) {
+	public ChangeFtpPathDialog(Shell parent, GUI gui, TabContent tabContent, PS4PKG[] pkgs) {
 		Shell shell = new Shell(parent, SWT.DIALOG_TRIM | SWT.APPLICATION_MODAL);
 		shell.setText("Select New FTP IP/Port");
 		shell.setLayout(new GridLayout(1, false));
@@ -52,32 +46,17 @@ public class ChangeFtpPathDialog {
 				if (input.isEmpty() || input.contains("/"))
 					return;
 
-			List<TableItem> ftpItems = new ArrayList<>(Arrays.asList(items));
-			ftpItems.removeIf(item -> !((PS4PKG) item.getData()).path.startsWith("ftp://"));
-
-			for (int i = 0; i < items.length; i++) {
-				PS4PKG pkg = (PS4PKG) items[i].getData();
-				System.out.println(pkg.path);
+			for (PS4PKG pkg : pkgs) {
 				if (pkg.path.startsWith("ftp://")) {
 					int rootIndex = pkg.path.indexOf('/', 6);
 					if (rootIndex == -1)
 						continue;
 
 					String path = "ftp://" + ip + ':' + port + pkg.path.substring(rootIndex);
-					pkg.path = path;
-					int fileSeparatorIndex = path.lastIndexOf('/');
-					pkg.directory = path.substring(0, fileSeparatorIndex);
-					pkg.filename = path.substring(fileSeparatorIndex + 1);
-
-					final int index = i;
-					Display.getDefault().asyncExec(() -> {
-						items[index].setText(Column.PATH.ordinal(), pkg.path);
-						items[index].setText(Column.DIRECTORY.ordinal(), pkg.directory);
-						items[index].setText(Column.FILENAME.ordinal(), pkg.filename);
-					});
+					tabContent.changePkgPath(pkg, path);
 				}
 			}
-			Display.getDefault().asyncExec(() -> gui.updateCurrentSelectionStatus(items));
+			gui.updateCurrentSelectionStatus(pkgs);
 
 			shell.close();
 		});
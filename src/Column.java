@@ -27,7 +27,9 @@ public enum Column {
     COMPATIBILITY_CHECKSUM("Compatibility checksum",
         "Indicates whether app and patch PKGs are compatible with each other (\"married\")", true, SWT.LEFT,
         Comparators.stringComparator),
-    FAKE("FPKG", "A check mark means the PKG is a fake PKG", false, SWT.CENTER, Comparators.boolComparator);
+    FAKE("FPKG", "A check mark means the PKG is a fake PKG", false, SWT.CENTER, Comparators.boolComparator),
+    INTEGRITY("Integrity", "Whether the PKG's body and PFS image match their digests (see \"Verify Integrity\")", false,
+        SWT.LEFT, Comparators.stringComparator);
 
     public final String name;
     public final String tooltip;
@@ -40,7 +42,7 @@ public enum Column {
     public static final int[] order = { INDEX.ordinal(), PATH.ordinal(), DIRECTORY.ordinal(), FILENAME.ordinal(),
         TITLE.ordinal(), TITLE_ID.ordinal(), REGION.ordinal(), TYPE.ordinal(), VERSION.ordinal(), FAKE.ordinal(),
         BACKPORT.ordinal(), SDK.ordinal(), FIRMWARE.ordinal(), SIZE.ordinal(), RELEASE_TAGS.ordinal(),
-        COMPATIBILITY_CHECKSUM.ordinal()
+        COMPATIBILITY_CHECKSUM.ordinal(), INTEGRITY.ordinal()
     };
 
     Column(String name, String tooltip, boolean enabledByDefault, int style, Comparator<String> comparator) {
@@ -51,6 +53,14 @@ public enum Column {
         this.comparator = comparator;
     }
 
+    // Columns that are sorted by a precomputed typed key (see SortKeys) instead of by their texts.
+    public boolean hasSortKey() {
+        return switch (this) {
+            case INDEX, VERSION, BACKPORT, SDK, FIRMWARE, SIZE, FAKE -> true;
+            default -> false;
+        };
+    }
+
     // Used to recreate stored column order.
     public static Column get(int ordinal) {
         for (Column column : values())
@@ -99,4 +109,4 @@ class Comparators {
     }
 
     static final Comparator<String> sizeComparator = (a, b) -> longComparator.compare(toKB(a), toKB(b));
-}
\ No newline at end of file
+}
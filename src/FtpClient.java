@@ -8,6 +8,9 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 
 @SuppressWarnings("serial")
@@ -355,6 +358,38 @@ public class FtpClient {
 		return buffer;
 	}
 
+	/**
+	 * Opens a remote file for sequential reading. Closing the channel ends the transfer, even if the file has not been
+	 * read completely. The file's path must be absolute.
+	 */
+	public ReadableByteChannel openChannel(String file) throws UnexpectedServerResponse, IOException {
+		pasv();
+		retr(file);
+		ReadableByteChannel input = Channels.newChannel(dataSocket.getInputStream());
+		return new ReadableByteChannel() {
+			@Override
+			public int read(ByteBuffer dst) throws IOException {
+				return input.read(dst);
+			}
+
+			@Override
+			public boolean isOpen() {
+				return input.isOpen();
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (!input.isOpen())
+					return;
+				try {
+					dataSocket.close();
+				} finally {
+					getReturnCode(); // "Transfer complete" or "Transfer aborted".
+				}
+			}
+		};
+	}
+
 	public void disconnect() {
 		try {
 			if (this.ctrlSocket != null)
@@ -1,12 +1,11 @@
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Properties;
 
@@ -24,6 +23,7 @@ import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.Shell;
@@ -31,11 +31,16 @@ import org.eclipse.swt.widgets.TabFolder;
 import org.eclipse.swt.widgets.TabItem;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
-import org.eclipse.swt.widgets.TableItem;
 
 public class GUI {
 	public static final String PROGRAM_NAME = "PS4 PKG Manager";
 	public static final String PROGRESS_TEXT = "Processing...";
+	public static final String PROGRESS_STATS_FORMAT = PROGRESS_TEXT + " %d queued, %.1f PKGs/s";
+	public static final String ENRICHING_FORMAT = "Reading metadata... %d left";
+	public static final String VERIFYING_FORMAT = "Verifying... %d left, %.1f MB/s";
+	public static final String LOADING_TEXT = "Loading...";
+	public static final String LOADING_STATS_FORMAT = LOADING_TEXT + " %d of %d PKGs";
+	public static final String IGNORED_FILES_FORMAT = "<a>%d ignored</a>";
 	public static final int PROGRESS_CHECK_INTERVAL = 1000;
 
 	private Display display;
@@ -45,6 +50,7 @@ public class GUI {
 	private static final String NEW_TAB_NAME = "New Tab";
 	private Label currentSelectionStatus;
 	private Label progressIndicator;
+	private Link ignoredFilesLink; // Shows how many files are ignored because they are not PKGs.
 	public Table previousTable;
 
 	public static String dataDirectory = System.getProperty("user.home") + switch (SWT.getPlatform()) {
@@ -54,7 +60,15 @@ public class GUI {
 	};
 	private final String settingsPath = dataDirectory + "/ui.properties";
 	private final String actionsPath = dataDirectory + "/actions.txt";
-	private final String databasePath = dataDirectory + "/pkgs.db";
+	private final String catalogPath = dataDirectory + "/pkgs.cat";
+	private final String legacyDatabasePath = dataDirectory + "/pkgs.db"; // Used by older program versions.
+	private final String journalPath = dataDirectory + "/pkgs.journal";
+	private final String ignoredFilesPath = dataDirectory + "/ignored.txt";
+	private Journal journal; // Records PKG changes since the catalog was last written.
+	private CatalogLoader catalogLoader; // Restores the previous session's PKGs in the background.
+	private boolean isCompactionDeferred;
+	private boolean isTabLayoutSaveDeferred;
+	private volatile boolean isCatalogOutdated; // The catalog was written by an older program version.
 
 	public static void main(String[] args) {
 		try {
@@ -108,18 +122,28 @@ public class GUI {
 			// Flush pending table item insertions.
 			while (display.readAndDispatch())
 				;
+			for (TabContent t : tabContents) {
+				t.updatePump.flush();
+				t.enrichmentPump.flush(); // Unfinished placeholders are enriched on the next start.
+			}
 
 			saveGUIState();
+			if (journal != null)
+				journal.close(); // Only the journal's tail needs to be written.
 			CustomActions.saveActionsToFile(actionsPath);
+			IgnoredFiles.saveToFile(ignoredFilesPath);
 			System.exit(0);
 		});
 
 		createMenu();
 		createStatusBar();
+		IgnoredFiles.loadFromFile(ignoredFilesPath); // Before any tab starts reading files.
+		openJournal();
 
 		// Try to load GUI state from file; on failure, create a single, detached default table.
 		if (this.loadGUIState() == -1) {
 			createNewTab(null);
+			compactJournal(); // Start over with an empty catalog that matches the single tab.
 
 			// Set 16:9 aspect ratio.
 			shell.pack();
@@ -167,7 +191,10 @@ public class GUI {
 
 		MenuItem mntmNewTab = new MenuItem(menuFile, SWT.NONE);
 		mntmNewTab.setText("New &Tab");
-		mntmNewTab.addListener(SWT.Selection, e -> createNewTab(null));
+		mntmNewTab.addListener(SWT.Selection, e -> {
+			createNewTab(null);
+			saveTabLayout();
+		});
 
 		new MenuItem(menuFile, SWT.SEPARATOR);
 
@@ -229,7 +256,7 @@ public class GUI {
 			if (table == null)
 				return;
 			table.selectAll();
-			updateCurrentSelectionStatus(table.getSelection());
+			updateCurrentSelectionStatus(getCurrentTabContent().getSelectedPkgs());
 		});
 
 		MenuItem mntmDeselectAll = new MenuItem(menuEdit, SWT.NONE);
@@ -245,16 +272,16 @@ public class GUI {
 		MenuItem mntmInvertSelection = new MenuItem(menuEdit, SWT.NONE);
 		mntmInvertSelection.setText("&Invert Selection");
 		mntmInvertSelection.addListener(SWT.Selection, e -> {
-			Table table = getCurrentTable();
-			for (TableItem item : table.getItems()) {
-				int index = table.indexOf(item);
-				if (table.isSelected(index))
-					table.deselect(index);
+			TabContent tabContent = getCurrentTabContent();
+			Table table = tabContent.getTable();
+			for (int i = 0; i < table.getItemCount(); i++) {
+				if (table.isSelected(i))
+					table.deselect(i);
 				else
-					table.select(index);
+					table.select(i);
 			}
 			table.setTopIndex(table.getSelectionIndex());
-			updateCurrentSelectionStatus(table.getSelection());
+			updateCurrentSelectionStatus(tabContent.getSelectedPkgs());
 		});
 
 		new MenuItem(menuEdit, SWT.SEPARATOR);
@@ -262,25 +289,27 @@ public class GUI {
 		MenuItem mntmSelectExisting = new MenuItem(menuEdit, SWT.NONE);
 		mntmSelectExisting.setText("Select &Existing");
 		mntmSelectExisting.addListener(SWT.Selection, e -> {
-			Table table = getCurrentTable();
+			TabContent tabContent = getCurrentTabContent();
+			Table table = tabContent.getTable();
 			table.deselectAll();
-			for (TableItem item : table.getItems())
-				if (Files.exists(Paths.get(((PS4PKG) item.getData()).path)))
-					table.select(table.indexOf(item));
+			for (int i = 0; i < table.getItemCount(); i++)
+				if (Files.exists(Paths.get(tabContent.getPkg(i).path)))
+					table.select(i);
 			table.setTopIndex(table.getSelectionIndex());
-			updateCurrentSelectionStatus(table.getSelection());
+			updateCurrentSelectionStatus(tabContent.getSelectedPkgs());
 		});
 
 		MenuItem mntmSelectNonExisting = new MenuItem(menuEdit, SWT.NONE);
 		mntmSelectNonExisting.setText("Select Non-E&xisting");
 		mntmSelectNonExisting.addListener(SWT.Selection, e -> {
-			Table table = getCurrentTable();
+			TabContent tabContent = getCurrentTabContent();
+			Table table = tabContent.getTable();
 			table.deselectAll();
-			for (TableItem item : table.getItems())
-				if (!Files.exists(Paths.get(((PS4PKG) item.getData()).path)))
-					table.select(table.indexOf(item));
+			for (int i = 0; i < table.getItemCount(); i++)
+				if (!Files.exists(Paths.get(tabContent.getPkg(i).path)))
+					table.select(i);
 			table.setTopIndex(table.getSelectionIndex());
-			updateCurrentSelectionStatus(table.getSelection());
+			updateCurrentSelectionStatus(tabContent.getSelectedPkgs());
 		});
 
 		MenuItem mntmSelectSynchronized = new MenuItem(menuEdit, SWT.NONE);
@@ -288,23 +317,23 @@ public class GUI {
 		mntmSelectSynchronized.addListener(SWT.Selection, e -> {
 			TabContent tabContent = getCurrentTabContent();
 			Table table = tabContent.getTable();
-			TableItem[] items = table.getItems();
+			PS4PKG[] items = tabContent.getVisiblePkgs();
 			String[] synchedDirs = tabContent.watcherThread.getSyncedDirs();
 			table.deselectAll();
 			if (synchedDirs.length != 0) {
 				int[] synchedDirsRecursionState = tabContent.watcherThread.getSyncedDirsRecursionState();
-				for (TableItem item : items) {
-					PS4PKG pkg = (PS4PKG) item.getData();
+				for (int j = 0; j < items.length; j++) {
+					PS4PKG pkg = items[j];
 					for (int i = 0; i < synchedDirs.length; i++)
 						if (synchedDirsRecursionState[i] == 0) {
 							if (pkg.directory.equals(synchedDirs[i]))
-								table.select(table.indexOf(item));
+								table.select(j);
 						} else if (pkg.directory.startsWith(synchedDirs[i]))
-							table.select(table.indexOf(item));
+							table.select(j);
 				}
 				table.setTopIndex(table.getSelectionIndex());
 			}
-			updateCurrentSelectionStatus(table.getSelection());
+			updateCurrentSelectionStatus(tabContent.getSelectedPkgs());
 		});
 
 		MenuItem mntmSelectNonSynchronized = new MenuItem(menuEdit, SWT.NONE);
@@ -312,25 +341,25 @@ public class GUI {
 		mntmSelectNonSynchronized.addListener(SWT.Selection, e -> {
 			TabContent tabContent = getCurrentTabContent();
 			Table table = tabContent.getTable();
-			TableItem[] items = table.getItems();
+			PS4PKG[] items = tabContent.getVisiblePkgs();
 			String[] synchedDirs = tabContent.watcherThread.getSyncedDirs();
 			if (synchedDirs.length == 0)
 				table.selectAll();
 			else {
 				table.deselectAll();
 				int[] synchedDirsRecursionState = tabContent.watcherThread.getSyncedDirsRecursionState();
-				for (TableItem item : items) {
-					PS4PKG pkg = (PS4PKG) item.getData();
+				for (int j = 0; j < items.length; j++) {
+					PS4PKG pkg = items[j];
 					for (int i = 0; i < synchedDirs.length; i++)
 						if (synchedDirsRecursionState[i] == 0) {
 							if (!pkg.directory.equals(synchedDirs[i]))
-								table.select(table.indexOf(item));
+								table.select(j);
 						} else if (!pkg.directory.startsWith(synchedDirs[i]))
-							table.select(table.indexOf(item));
+							table.select(j);
 				}
 				table.setTopIndex(table.getSelectionIndex());
 			}
-			updateCurrentSelectionStatus(table.getSelection());
+			updateCurrentSelectionStatus(tabContent.getSelectedPkgs());
 		});
 
 		new MenuItem(menuEdit, SWT.SEPARATOR);
@@ -406,52 +435,90 @@ public class GUI {
 	 */
 	private boolean isProcessingData(boolean ignoreNullObjects) {
 		for (TabContent tabContent : getTabContents())
-			if (tabContent.tableThread.isProcessingData(ignoreNullObjects))
+			if (tabContent.tableThread.isProcessingData(ignoreNullObjects) || tabContent.updatePump.hasPendingData())
 				return true;
 		return false;
 	}
 
-	/** Creates a Properties window containing the provided Table's current PKG selection. */
-	public void openPkgProperties(Table table) {
-		TableItem[] items = table.getSelection();
+	/** Creates a Properties window containing the provided TabContent's current PKG selection. */
+	public void openPkgProperties(TabContent tabContent) {
+		Table table = tabContent.getTable();
 
 		int index;
-		if (items.length == 1) {
+		PS4PKG[] pkgs;
+		if (table.getSelectionCount() == 1) {
 			// If only 1 PKG is selected, open all PKGs, for convenience.
-			index = table.indexOf(items[0]);
-			items = table.getItems();
-		} else
+			index = table.getSelectionIndex();
+			pkgs = tabContent.getVisiblePkgs();
+		} else {
 			// If specific PKGs are selected, open only those.
 			index = 0;
+			pkgs = tabContent.getSelectedPkgs();
+		}
 
-		PS4PKG[] pkgs = new PS4PKG[items.length];
-		for (int i = 0; i < items.length; i++)
-			pkgs[i] = (PS4PKG) items[i].getData();
-
-		new PkgProperties(shell, pkgs, index);
+		new PkgProperties(shell, pkgs, index, tabContent);
 	}
 
 	private void createStatusBar() {
 		Composite statusBar = new Composite(shell, SWT.NONE);
 		statusBar.setLayoutData(new BorderData(SWT.BOTTOM));
-		statusBar.setLayout(new GridLayout(2, false));
+		statusBar.setLayout(new GridLayout(3, false));
 
 		this.currentSelectionStatus = new Label(statusBar, SWT.NONE);
 		currentSelectionStatus.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		this.ignoredFilesLink = new Link(statusBar, SWT.NONE);
+		ignoredFilesLink.setToolTipText("Files that are skipped because they are not PKGs or are corrupt");
+		ignoredFilesLink.addListener(SWT.Selection, e -> new IgnoredFilesDialog(shell));
+		GridData ignoredFilesLinkLayoutData = new GridData(SWT.RIGHT, SWT.CENTER, false, false);
+		ignoredFilesLinkLayoutData.exclude = true;
+		ignoredFilesLink.setLayoutData(ignoredFilesLinkLayoutData);
+		ignoredFilesLink.setVisible(false);
 		this.progressIndicator = new Label(statusBar, SWT.RIGHT | SWT.NONE);
-		progressIndicator.setText(PROGRESS_TEXT);
+		progressIndicator.setText(String.format(PROGRESS_STATS_FORMAT, 88888, 888.8)); // Longest reasonable text.
 		GridData progressIndicatorLayoutData = new GridData(SWT.LEFT, SWT.CENTER, false, false);
 		progressIndicatorLayoutData.widthHint = progressIndicator.computeSize(SWT.DEFAULT, SWT.DEFAULT).x;
 		progressIndicator.setLayoutData(progressIndicatorLayoutData);
 		progressIndicator.setText("");
 
 		Thread progressIndicatorThread = new Thread(() -> {
+			long previousCount = ParsePool.getCompletedCount();
+			long previousBytesHashed = PkgVerifier.getBytesHashed();
+			long previousTime = System.nanoTime();
 			while (true) {
+				// Report the parser queue's length and throughput.
+				long count = ParsePool.getCompletedCount();
+				long time = System.nanoTime();
+				double throughput = (count - previousCount) * 1e9 / (time - previousTime);
+				long bytesHashed = PkgVerifier.getBytesHashed();
+				double verificationThroughput = (bytesHashed - previousBytesHashed) * 1e3 / (time - previousTime);
+				previousCount = count;
+				previousBytesHashed = bytesHashed;
+				previousTime = time;
+				int queueLength = ParsePool.getQueueLength();
+				int enrichmentQueueLength = ParsePool.getEnrichmentQueueLength();
+				int verificationQueueLength = PkgVerifier.getQueueLength();
+				int ignoredFileCount = IgnoredFiles.getCount();
+
 				display.syncExec(() -> {
-					if (isProcessingData(false) == true) {
-						if (progressIndicator.getText().isEmpty())
+					setIgnoredFileCount(ignoredFileCount);
+
+					if (isLoadingCatalog()) {
+						int total = catalogLoader.getTotalCount();
+						if (total == -1)
+							setProgressStatus(LOADING_TEXT);
+						else
+							setProgressStatus(
+								String.format(LOADING_STATS_FORMAT, catalogLoader.getRestoredCount(), total));
+					} else if (isProcessingData(false) == true) {
+						if (queueLength == 0)
 							setProgressStatus(PROGRESS_TEXT);
-					} else if (!progressIndicator.getText().isEmpty())
+						else
+							setProgressStatus(String.format(PROGRESS_STATS_FORMAT, queueLength, throughput));
+					} else if (verificationQueueLength != 0)
+						setProgressStatus(String.format(VERIFYING_FORMAT, verificationQueueLength, verificationThroughput));
+					else if (enrichmentQueueLength != 0)
+						setProgressStatus(String.format(ENRICHING_FORMAT, enrichmentQueueLength));
+					else if (!progressIndicator.getText().isEmpty())
 						setProgressStatus("");
 				});
 
@@ -471,19 +538,30 @@ public class GUI {
 	 * automatically. But if the PKG selection was done programmatically, for the status to appear this function must be
 	 * explicitly called.
 	 *
-	 * @param items the table items that the status bar should tell about. If null, the status bar will be empty.
+	 * @param pkgs the PKGs that the status bar should tell about. If null, the status bar will be empty.
 	 */
-	public void updateCurrentSelectionStatus(TableItem[] items) {
-		if (items == null || items.length == 0)
+	public void updateCurrentSelectionStatus(PS4PKG[] pkgs) {
+		if (pkgs == null || pkgs.length == 0)
 			this.currentSelectionStatus.setText("");
-		else if (items.length == 1)
-			this.currentSelectionStatus.setText(((PS4PKG) items[0].getData()).path);
+		else if (pkgs.length == 1)
+			this.currentSelectionStatus.setText(pkgs[0].path);
 		else
-			this.currentSelectionStatus.setText(String.format("%d PKG files selected.", items.length));
+			this.currentSelectionStatus.setText(String.format("%d PKG files selected.", pkgs.length));
 		// TODO: add "[Incomplete]", perhaps in a different color, when the file's length is smaller than the one in
 		// the header.
 	}
 
+	// Shows the number of ignored files on the status bar, or nothing if there are none.
+	private void setIgnoredFileCount(int count) {
+		String text = String.format(IGNORED_FILES_FORMAT, count);
+		if (text.equals(ignoredFilesLink.getText()) && ignoredFilesLink.getVisible() == (count != 0))
+			return;
+		ignoredFilesLink.setText(text);
+		ignoredFilesLink.setVisible(count != 0);
+		((GridData) ignoredFilesLink.getLayoutData()).exclude = count == 0;
+		ignoredFilesLink.getParent().layout();
+	}
+
 	/** Puts text in the bottom right corner of the status bar. */
 	private void setProgressStatus(String text) {
 		progressIndicator.setText(text);
@@ -517,6 +595,7 @@ public class GUI {
 		props.setProperty("ps4_ips", String.join(", ", Settings.ps4Ips));
 		props.setProperty("ps4_ftp_ports", String.join(", ", Settings.ps4FtpPorts));
 		props.setProperty("title_language", String.valueOf(Settings.titleLanguage));
+		props.setProperty("parser_threads", String.valueOf(Settings.parserThreads));
 
 		// Save other --------------------------------------------------------------------------------------------------
 
@@ -561,10 +640,6 @@ public class GUI {
 
 			// Save sort direction.
 			props.setProperty(i + "_sort_direction", String.valueOf(tables[i].getSortDirection()));
-
-			// Save PKG count.
-			int pkgCount = tabContents[i].getTableItemBuffer().size();
-			props.setProperty(i + "_pkg_count", String.valueOf(pkgCount));
 		}
 
 		// Save currently selected tab.
@@ -592,19 +667,67 @@ public class GUI {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+	}
 
-		// Save PKG database -------------------------------------------------------------------------------------------
-
-		// Write PKG objects to database.
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(databasePath))) {
-			for (int i = 0; i < tables.length; i++)
-				for (TableItemData data : tabContents[i].getTableItemBuffer())
-					oos.writeObject(data.pkg());
+	// Opens the journal. Its compaction requests are served on the user interface thread, where the tabs are.
+	private void openJournal() {
+		if (!createDataDirectory())
+			return;
+		try {
+			journal = new Journal(Paths.get(journalPath), Paths.get(catalogPath),
+				() -> display.asyncExec(this::compactJournal));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	// Returns true while the previous session's PKGs are still being restored.
+	private boolean isLoadingCatalog() {
+		return catalogLoader != null && !catalogLoader.isFinished();
+	}
+
+	// Makes the journal write the current PKGs as the new catalog and start over.
+	private void compactJournal() {
+		if (journal == null || shell.isDisposed())
+			return;
+		if (isLoadingCatalog()) { // The tabs are incomplete yet.
+			isCompactionDeferred = true;
+			return;
+		}
+		TabContent[] tabContents = getTabContents();
+		PS4PKG[][] pkgs = new PS4PKG[tabContents.length][];
+		for (int i = 0; i < tabContents.length; i++)
+			pkgs[i] = tabContents[i].getPkgs();
+		journal.compact(pkgs);
+	}
+
+	// Journal entries refer to tabs by index, so the tab layout and the catalog must be saved together whenever tabs
+	// are added, moved or removed.
+	private void saveTabLayout() {
+		if (isLoadingCatalog()) {
+			isTabLayoutSaveDeferred = true;
+			return;
+		}
+		saveGUIState();
+		compactJournal();
+		if (journal != null)
+			journal.flush();
+	}
+
+	/** Records in the journal that a PKG has been added to or replaced in the specified tab. */
+	public void recordPkgAdded(TabContent tabContent, PS4PKG pkg) {
+		int tabIndex = Arrays.asList(getTabContents()).indexOf(tabContent);
+		if (journal != null && tabIndex != -1)
+			journal.add(tabIndex, pkg);
+	}
+
+	/** Records in the journal that a PKG has been removed from the specified tab. */
+	public void recordPkgRemoved(TabContent tabContent, String path) {
+		int tabIndex = Arrays.asList(getTabContents()).indexOf(tabContent);
+		if (journal != null && tabIndex != -1)
+			journal.remove(tabIndex, path);
+	}
+
 	// Helper function for loadGUIState().
 	private int[] propertyToIntArray(String property) {
 		String[] temp = property.replace("[", "").replace("]", "").split(", ");
@@ -655,6 +778,16 @@ public class GUI {
 			e.printStackTrace();
 		}
 
+		// Optional, added in a later program version.
+		String parserThreads = props.getProperty("parser_threads");
+		if (parserThreads != null)
+			try {
+				Settings.parserThreads = Integer.parseInt(parserThreads);
+				ParsePool.setThreadCount(Settings.parserThreads);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+
 		// Load other --------------------------------------------------------------------------------------------------
 
 		// Load state of all tables.
@@ -799,53 +932,82 @@ public class GUI {
 				}
 
 				tabContents[i].watcherThread.generateWatchKeys();
-				tabContents[i].watcherThread.start();
+				// The watcher thread is started after the tab's PKGs have been restored.
 				// tabContents[i].watcherThread.printSynchronizedDirectories(); // DEBUG
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 
-		// Load PKGs from database.
-		// TODO: if serial UID mismatches, load all PKG files from their original locations.
-		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(databasePath))) {
-			TabContent[] tabContents = getTabContents();
-			loop: for (int i = 0; i < tabContents.length; i++) {
-				int pkgCount = Integer.parseInt(props.getProperty(i + "_pkg_count"));
-				// Read this TabContent's PKGs from file and send them to its TableThread for processing.
-				for (int j = 0; j < pkgCount; j++) {
-					// This will send the PKGs to the table thread, adding them while the user interface can be used.
-					// However, while the resulting initial sort order is a correct one, it is not necessarily the exact
-					// same order of the previous session.
-					// tabContents[i].queue.push(ois.readObject());
-
-					// This alternative approach retains the original sort order, at the cost of bypassing various
-					// methods the thread would normally use. Any changes here must be double-checked very carefully.
-					// Depending on the hardware, it may also introduce a short period of user interface lag.
-					// Fragile as it is: should this break one day, forget about it and use the previous method.
-					// TODO: let the user choose the method.
-					TableItem item = new TableItem(tabContents[i].getTable(), SWT.NONE);
-					PS4PKG pkg = (PS4PKG) ois.readObject();
-					if (pkg == null)
-						break loop;
-					String[] texts = tabContents[i].tableThread.Ps4PkgToTableItemText(pkg);
-					item.setText(texts);
-					item.setData(pkg);
-					tabContents[i].getTableItemBuffer().add(new TableItemData(pkg, texts));
-					// tabContents[i].markIncompletePkg(item);
-				}
+		// Load PKGs from the catalog in the background, so that the window shows up immediately.
+		TabContent[] tabContents = getTabContents();
+		catalogLoader = new CatalogLoader(() -> loadCatalog(props, tabContents.length), tabContents,
+			this::onCatalogLoaded);
+		catalogLoader.start();
+
+		return 0;
+	}
+
+	// Called after the catalog loader has restored all tabs.
+	private void onCatalogLoaded() {
+		if (shell.isDisposed())
+			return;
+
+		// Now that the tabs are complete, synchronized directories can be compared with them.
+		for (TabContent tabContent : getTabContents())
+			if (tabContent.watcherThread.getSyncedDirs().length != 0 && !tabContent.watcherThread.isAlive())
+				tabContent.watcherThread.start();
+
+		// Finish enriching placeholders of the previous session.
+		for (TabContent tabContent : getTabContents())
+			for (PS4PKG pkg : tabContent.getPkgs())
+				if (pkg.isHeaderOnly())
+					tabContent.tableThread.enrich(pkg);
+
+		// Catch up on saving that had to wait for the tabs, and fold the replayed journal into a new catalog (which also
+		// upgrades an outdated catalog).
+		if (isTabLayoutSaveDeferred)
+			saveTabLayout();
+		else if (isCompactionDeferred || isCatalogOutdated || (journal != null && !journal.isEmpty()))
+			compactJournal();
+		isTabLayoutSaveDeferred = false;
+		isCompactionDeferred = false;
+	}
+
+	/**
+	 * Reads each tab's PKGs from the catalog and replays the journal. If there is no catalog yet, the PKG database of
+	 * older program versions is converted once.
+	 */
+	private PS4PKG[][] loadCatalog(Properties props, int tabCount) {
+		Path catalog = Paths.get(catalogPath);
+		Path legacyDatabase = Paths.get(legacyDatabasePath);
+		try {
+			if (Files.exists(catalog) || (journal != null && !journal.isEmpty())) {
+				// Older catalogs keep all PKGs' sections in memory until they are rewritten.
+				isCatalogOutdated = Files.exists(catalog) && Catalog.readVersion(catalog) < Catalog.VERSION;
+				return Journal.load(catalog, Paths.get(journalPath));
 			}
-		} catch (Exception e) {
+
+			if (Files.exists(legacyDatabase)) {
+				int[] pkgCounts = new int[tabCount];
+				for (int i = 0; i < tabCount; i++)
+					pkgCounts[i] = Integer.parseInt(props.getProperty(i + "_pkg_count", "0"));
+				PS4PKG[][] pkgs = Catalog.readLegacyDatabase(legacyDatabase, pkgCounts);
+				Catalog.write(catalog, pkgs);
+				Files.move(legacyDatabase, Paths.get(legacyDatabasePath + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+				return pkgs;
+			}
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
-
-		return 0;
+		return new PS4PKG[0][];
 	}
 
 	// Creates and returns a new tab folder.
 	private TabFolder createTabFolder() {
 		TabFolder tabFolder = new TabFolder(shell, SWT.NONE);
-		tabFolder.addListener(SWT.Selection, e -> updateCurrentSelectionStatus(getCurrentTable().getSelection()));
+		tabFolder.addListener(SWT.Selection,
+			e -> updateCurrentSelectionStatus(getCurrentTabContent().getSelectedPkgs()));
 
 		Menu tabMenu = new Menu(tabFolder);
 
@@ -878,6 +1040,7 @@ public class GUI {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
 				createNewTab(null);
+				saveTabLayout();
 			}
 		});
 
@@ -928,6 +1091,7 @@ public class GUI {
 
 			// Restore previous selection.
 			tabFolder.setSelection(selectionIndex);
+			saveTabLayout();
 		});
 
 		// "Move right"
@@ -962,6 +1126,7 @@ public class GUI {
 
 			// Restore previous selection.
 			tabFolder.setSelection(selectionIndex);
+			saveTabLayout();
 		});
 
 		new MenuItem(tabMenu, SWT.SEPARATOR);
@@ -1065,5 +1230,6 @@ public class GUI {
 			tabFolder = null;
 			shell.layout();
 		}
+		saveTabLayout();
 	}
 }
\ No newline at end of file
@@ -9,4 +9,12 @@ public class Hex {
         }
         return new String(hexChars);
     }
-}
\ No newline at end of file
+
+    public static byte[] hexStringToByteArray(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (Character.digit(hex.charAt(i * 2), 16) << 4
+                | Character.digit(hex.charAt(i * 2 + 1), 16));
+        return bytes;
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers files that have a PKG file name extension but are not PKGs or are corrupt, so that they are not opened again
+ * on each directory synchronization, watch event and program start. A file is tried again as soon as its size or
+ * modification time changes. Thread-safe.
+ */
+public class IgnoredFiles {
+	private record FileState(long size, long modificationTime) {
+	}
+
+	private static final HashMap<String, FileState> files = new HashMap<>(); // Guarded by itself.
+
+	private IgnoredFiles() {
+	}
+
+	// Returns a file's current size and modification time, or null if it does not exist.
+	private static FileState getState(String path) throws IOException {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+			return new FileState(attributes.size(), attributes.lastModifiedTime().toMillis());
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/** Returns true if a file is known to be no (valid) PKG and has not changed since. */
+	public static boolean isIgnored(String path) {
+		FileState state;
+		synchronized (files) {
+			state = files.get(path);
+		}
+		if (state == null)
+			return false;
+
+		try {
+			if (state.equals(getState(path)))
+				return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		synchronized (files) {
+			files.remove(path, state);
+		}
+		return false;
+	}
+
+	/** Ignores a file until it changes. */
+	public static void add(String path) {
+		try {
+			FileState state = getState(path);
+			if (state != null)
+				synchronized (files) {
+					files.put(path, state);
+				}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/** Returns the number of ignored files. */
+	public static int getCount() {
+		synchronized (files) {
+			return files.size();
+		}
+	}
+
+	/** Returns the paths of all ignored files, sorted. */
+	public static String[] getPaths() {
+		String[] paths;
+		synchronized (files) {
+			paths = files.keySet().toArray(new String[0]);
+		}
+		Arrays.sort(paths);
+		return paths;
+	}
+
+	/** Forgets all ignored files, so that they are tried again the next time they are encountered. */
+	public static void clear() {
+		synchronized (files) {
+			files.clear();
+		}
+	}
+
+	/** Saves the ignored files, one per line, as "size|modification time|path". */
+	public static void saveToFile(String filename) {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+			synchronized (files) {
+				for (Map.Entry<String, FileState> entry : files.entrySet())
+					writer.write(entry.getValue().size() + "|" + entry.getValue().modificationTime() + '|'
+						+ entry.getKey() + '\n');
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public static void loadFromFile(String filename) {
+		if (!Files.exists(Paths.get(filename)))
+			return;
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\\|", 3);
+				if (fields.length != 3)
+					continue;
+				try {
+					FileState state = new FileState(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+					synchronized (files) {
+						files.put(fields[2], state);
+					}
+				} catch (NumberFormatException e) {
+					continue;
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+/** Lists the files that are ignored because they are not PKGs or are corrupt (see IgnoredFiles). */
+public class IgnoredFilesDialog {
+	public IgnoredFilesDialog(Shell parent) {
+		Shell shell = new Shell(parent, SWT.DIALOG_TRIM | SWT.RESIZE | SWT.APPLICATION_MODAL);
+		shell.setText("Ignored Files");
+		shell.setLayout(new GridLayout(2, false));
+
+		Label label = new Label(shell, SWT.WRAP);
+		label.setText("These files are no valid PKGs. They are skipped until they change.");
+		label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+
+		Text text = new Text(shell, SWT.BORDER | SWT.MULTI | SWT.READ_ONLY | SWT.H_SCROLL | SWT.V_SCROLL);
+		text.setText(String.join(text.getLineDelimiter(), IgnoredFiles.getPaths()));
+		GridData textLayoutData = new GridData(SWT.FILL, SWT.FILL, true, true, 2, 1);
+		textLayoutData.widthHint = 600;
+		textLayoutData.heightHint = 300;
+		text.setLayoutData(textLayoutData);
+
+		Button clear = new Button(shell, SWT.PUSH);
+		clear.setText("Try Again");
+		clear.setToolTipText("Forget all ignored files. They are read again the next time they are found.");
+		clear.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, true, false));
+		clear.addListener(SWT.Selection, e -> {
+			IgnoredFiles.clear();
+			shell.dispose();
+		});
+
+		Button close = new Button(shell, SWT.PUSH);
+		close.setText("Close");
+		close.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false));
+		close.addListener(SWT.Selection, e -> shell.dispose());
+
+		shell.setDefaultButton(close);
+		shell.pack();
+		ShellHelpers.centerShell(shell);
+		shell.open();
+	}
+}
@@ -0,0 +1,9 @@
+import java.io.IOException;
+
+/** Thrown if a file is not a PS4 PKG. */
+@SuppressWarnings("serial")
+class InvalidPkgException extends IOException {
+	public InvalidPkgException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,402 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the changes made to the tabs' PKGs since the catalog was last written. Together, the catalog
+ * (the "snapshot") and the journal describe the current state, so that a session's changes survive a crash and exiting
+ * the program only needs to write the journal's tail.
+ * <p>
+ * Operations are encoded and written by a background thread, which commits all operations that arrive within a short
+ * interval with a single write (group commit). PKGs whose sections are stored in the catalog are recorded with a
+ * reference to them instead of a copy. Once the journal has grown large enough, it asks
+ * for a compaction, which rewrites the catalog and empties the journal.
+ * <p>
+ * Layout (big-endian): magic number, catalog format version, then entries. Each entry consists of its length, a CRC32
+ * checksum, the operation, the tab index and the operation's data. A torn entry at the end (e.g. after a power loss)
+ * is ignored and overwritten.
+ */
+class Journal {
+	private static final int MAGIC = 0x504B474A; // "PKGJ"
+	private static final int HEADER_SIZE = 8;
+	private static final int ENTRY_HEADER_SIZE = 8; // Length and checksum.
+	private static final byte OP_ADD = 1; // Adds or replaces a PKG.
+	private static final byte OP_REMOVE = 2; // Removes a PKG by path.
+	private static final long COMMIT_INTERVAL = 200; // Milliseconds to wait for more operations to join a commit.
+	private static final int MAX_WRITE_SIZE = 1024 * 1024; // The size of the parts that large commits are written in.
+	private static final long MIN_COMPACTION_SIZE = 1024 * 1024; // The journal's minimum size before compacting.
+
+	private final Path catalogPath;
+	private final FileChannel channel;
+	private final Runnable compactionRequest;
+	private final Thread writer;
+	private final ArrayDeque<Object> pending = new ArrayDeque<>(); // Encoded entries (byte[]), additions and snapshots.
+	private long enqueuedCount;
+	private long committedCount;
+	private boolean isFlushRequested;
+	private boolean isCompactionRequested;
+	private boolean isClosed;
+
+	// A PKG to be encoded by the writer thread.
+	private record Addition(int tabIndex, PS4PKG pkg) {
+	}
+
+	/**
+	 * Opens a journal for appending, creating it if necessary.
+	 *
+	 * @param compactionRequest called on the writer thread when the journal has grown large enough to be compacted;
+	 *                          expected to call compact() eventually
+	 */
+	Journal(Path path, Path catalogPath, Runnable compactionRequest) throws IOException {
+		this.catalogPath = catalogPath;
+		this.compactionRequest = compactionRequest;
+		if (Files.exists(path))
+			upgrade(path);
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+
+		long validSize = getValidSize(Catalog.readFully(channel));
+		if (validSize == 0)
+			reset();
+		else
+			channel.truncate(validSize);
+		channel.position(channel.size());
+
+		this.writer = new Thread(this::run, "Journal Writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// Returns the size of the part of the journal that can be replayed, or 0 if the header is unusable. The journal is
+	// read into a heap buffer instead of being mapped, as it is truncated or replaced later.
+	private static int getValidSize(ByteBuffer bb) {
+		if (bb.remaining() < HEADER_SIZE)
+			return 0;
+		if (bb.getInt() != MAGIC || bb.getInt() != Catalog.VERSION)
+			return 0;
+
+		CRC32 crc = new CRC32();
+		while (bb.remaining() >= ENTRY_HEADER_SIZE) {
+			int start = bb.position();
+			int length = bb.getInt();
+			int checksum = bb.getInt();
+			if (length < 0 || length > bb.remaining())
+				return start;
+			crc.reset();
+			crc.update(bb.slice(bb.position(), length));
+			if ((int) crc.getValue() != checksum)
+				return start;
+			bb.position(bb.position() + length);
+		}
+		return bb.position();
+	}
+
+	// Rewrites a journal of an older format version in the current version, so that entries can be appended to it.
+	private static void upgrade(Path path) throws IOException {
+		ByteBuffer bb = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (bb.remaining() < HEADER_SIZE || bb.getInt() != MAGIC)
+			return;
+		int version = bb.getInt();
+		if (version < 1 || version >= Catalog.VERSION)
+			return;
+
+		ByteArrayOutputStream entries = new ByteArrayOutputStream();
+		entries.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(Catalog.VERSION).array());
+		CRC32 crc = new CRC32();
+		try {
+			while (bb.remaining() >= ENTRY_HEADER_SIZE) {
+				int length = bb.getInt();
+				int checksum = bb.getInt();
+				if (length < 0 || length > bb.remaining())
+					break;
+				ByteBuffer data = bb.slice(bb.position(), length);
+				crc.reset();
+				crc.update(data.duplicate());
+				if ((int) crc.getValue() != checksum)
+					break;
+				bb.position(bb.position() + length);
+
+				byte op = data.get();
+				int tabIndex = data.getInt();
+				if (op == OP_ADD)
+					entries.write(encodeEntry(op, tabIndex, Catalog.encodeRecord(Catalog.decodeRecord(data, version))));
+				else {
+					byte[] bytes = new byte[data.remaining()];
+					data.get(bytes);
+					entries.write(encodeEntry(op, tabIndex, bytes));
+				}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Damaged journal: " + path, e);
+		}
+
+		Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temporaryPath, entries.toByteArray());
+		Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the catalog and replays the journal on top of it.
+	 *
+	 * @return each tab's PKGs; PKGs added by the journal are appended to their tab
+	 */
+	static PS4PKG[][] load(Path catalogPath, Path journalPath) throws IOException {
+		PS4PKG[][] snapshot = Files.exists(catalogPath) ? Catalog.read(catalogPath) : new PS4PKG[0][];
+		if (!Files.exists(journalPath))
+			return snapshot;
+
+		ArrayList<LinkedHashMap<String, PS4PKG>> tabs = new ArrayList<>();
+		HashMap<Long, PS4PKG> storedPkgs = new HashMap<>(); // For resolving references to the catalog's sections.
+		for (PS4PKG[] pkgs : snapshot) {
+			LinkedHashMap<String, PS4PKG> tab = new LinkedHashMap<>();
+			for (PS4PKG pkg : pkgs) {
+				tab.put(pkg.path, pkg);
+				Catalog.Location location = pkg.getSectionsLocation();
+				if (location != null)
+					storedPkgs.put(location.offset(), pkg);
+			}
+			tabs.add(tab);
+		}
+
+		try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+			ByteBuffer bb = Catalog.readFully(channel);
+			bb.limit(getValidSize(bb.duplicate()));
+			bb.position(Math.min(HEADER_SIZE, bb.limit()));
+			while (bb.hasRemaining()) {
+				int length = bb.getInt();
+				bb.getInt(); // Checksum, already verified.
+				int end = bb.position() + length;
+
+				byte op = bb.get();
+				int tabIndex = bb.getInt();
+				while (tabs.size() <= tabIndex)
+					tabs.add(new LinkedHashMap<>());
+				if (op == OP_ADD) {
+					PS4PKG pkg = Catalog.decodeRecord(bb, Catalog.VERSION);
+					Catalog.resolveReference(pkg, storedPkgs);
+					tabs.get(tabIndex).put(pkg.path, pkg);
+				} else if (op == OP_REMOVE) {
+					byte[] bytes = new byte[bb.getInt()];
+					bb.get(bytes);
+					tabs.get(tabIndex).remove(new String(bytes, StandardCharsets.UTF_8));
+				}
+				bb.position(end);
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Damaged journal: " + journalPath, e);
+		}
+
+		PS4PKG[][] result = new PS4PKG[tabs.size()][];
+		for (int i = 0; i < result.length; i++)
+			result[i] = tabs.get(i).values().toArray(new PS4PKG[0]);
+		return result;
+	}
+
+	private static byte[] encodeEntry(byte op, int tabIndex, byte[] data) {
+		ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + 5 + data.length);
+		entry.position(ENTRY_HEADER_SIZE);
+		entry.put(op).putInt(tabIndex).put(data);
+		CRC32 crc = new CRC32();
+		crc.update(entry.array(), ENTRY_HEADER_SIZE, entry.capacity() - ENTRY_HEADER_SIZE);
+		entry.putInt(0, entry.capacity() - ENTRY_HEADER_SIZE).putInt(4, (int) crc.getValue());
+		return entry.array();
+	}
+
+	// Encodes an entry and queues it for the writer thread.
+	private void append(byte op, int tabIndex, byte[] data) {
+		enqueue(encodeEntry(op, tabIndex, data));
+	}
+
+	private synchronized void enqueue(Object item) {
+		if (isClosed)
+			return;
+		pending.add(item);
+		enqueuedCount++;
+		notifyAll();
+	}
+
+	/**
+	 * Records that a PKG has been added to (or replaced in) the specified tab. The PKG is encoded later, by the writer
+	 * thread.
+	 */
+	void add(int tabIndex, PS4PKG pkg) {
+		enqueue(new Addition(tabIndex, pkg));
+	}
+
+	/** Records that a PKG has been removed from the specified tab. */
+	void remove(int tabIndex, String pkgPath) {
+		byte[] bytes = pkgPath.getBytes(StandardCharsets.UTF_8);
+		append(OP_REMOVE, tabIndex, ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes).array());
+	}
+
+	/**
+	 * Writes the specified state as the new catalog and empties the journal. Operations recorded before this call are
+	 * part of the state, operations recorded afterwards are appended to the emptied journal.
+	 *
+	 * @param tabs each tab's PKGs, in table order
+	 */
+	void compact(PS4PKG[][] tabs) {
+		enqueue(tabs);
+	}
+
+	/** Returns true if the journal contains no operations, neither written nor pending. */
+	synchronized boolean isEmpty() {
+		try {
+			return pending.isEmpty() && channel.size() <= HEADER_SIZE;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/** Blocks until all operations recorded so far have been written. */
+	synchronized void flush() {
+		long target = enqueuedCount;
+		isFlushRequested = true;
+		notifyAll();
+		while (committedCount < target && writer.isAlive())
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+	}
+
+	/** Writes the remaining operations and closes the journal. */
+	void close() {
+		flush();
+		synchronized (this) {
+			isClosed = true;
+			notifyAll();
+		}
+		try {
+			writer.join();
+			channel.close();
+		} catch (InterruptedException | IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Empties the journal, leaving only its header.
+	private void reset() throws IOException {
+		channel.truncate(0);
+		channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(Catalog.VERSION).flip(), 0);
+		channel.force(false);
+		channel.position(HEADER_SIZE);
+	}
+
+	// The writer thread's main loop.
+	private void run() {
+		while (true) {
+			Object[] batch;
+			synchronized (this) {
+				try {
+					while (pending.isEmpty()) {
+						if (isClosed)
+							return;
+						wait();
+					}
+					if (!isFlushRequested && !isClosed)
+						wait(COMMIT_INTERVAL); // Let more operations join this commit.
+				} catch (InterruptedException e) {
+					return;
+				}
+				batch = pending.toArray();
+				pending.clear();
+				isFlushRequested = false;
+			}
+
+			try {
+				commit(batch);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			boolean needsCompaction;
+			synchronized (this) {
+				committedCount += batch.length;
+				notifyAll();
+				needsCompaction = !isCompactionRequested && needsCompaction();
+				if (needsCompaction)
+					isCompactionRequested = true;
+			}
+			if (needsCompaction)
+				compactionRequest.run();
+		}
+	}
+
+	// Writes a batch of entries with as few writes as possible.
+	private void commit(Object[] batch) throws IOException {
+		ByteArrayOutputStream entries = new ByteArrayOutputStream();
+		boolean isWritten = false;
+		for (Object item : batch) {
+			if (item instanceof byte[] entry)
+				entries.write(entry);
+			else if (item instanceof Addition addition)
+				try {
+					entries.write(encodeEntry(OP_ADD, addition.tabIndex(), Catalog.encodeRecord(addition.pkg())));
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			else {
+				// Write the snapshot, then drop the entries it contains. If the snapshot can't be written, the journal
+				// is kept as it is.
+				synchronized (this) {
+					isCompactionRequested = false;
+				}
+				try {
+					Catalog.write(catalogPath, (PS4PKG[][]) item);
+				} catch (IOException e) {
+					e.printStackTrace();
+					continue;
+				}
+				entries.reset();
+				reset();
+				isWritten = false;
+				continue;
+			}
+
+			// Large batches are written in parts, as they are only encoded here.
+			if (entries.size() >= MAX_WRITE_SIZE) {
+				write(entries);
+				isWritten = true;
+			}
+		}
+
+		if (entries.size() != 0) {
+			write(entries);
+			isWritten = true;
+		}
+		if (isWritten)
+			channel.force(false);
+	}
+
+	private void write(ByteArrayOutputStream entries) throws IOException {
+		ByteBuffer bb = ByteBuffer.wrap(entries.toByteArray());
+		while (bb.hasRemaining())
+			channel.write(bb);
+		entries.reset();
+	}
+
+	// Compact once the journal is large compared to the catalog, so that replaying it stays cheap.
+	private boolean needsCompaction() {
+		try {
+			long size = channel.size();
+			long catalogSize = Files.exists(catalogPath) ? Files.size(catalogPath) : 0;
+			return size >= MIN_COMPACTION_SIZE && size >= catalogSize / 2;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
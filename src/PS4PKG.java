@@ -1,20 +1,25 @@
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 // See https://www.psdevwiki.com/ps4/Package_Files#File_Header
-// TODO: change name to "PS4PKGHeader" if this class ever needs to increase its serialVersionUID.
+// Serialization is only used to read the PKG database of older program versions (see Catalog.readLegacyDatabase).
 class Header implements Serializable { // TODO: make it "inline class" once future LTS Java versions have that feature.
 	private static final long serialVersionUID = 1L;
 	static final int MAGIC = 0x7f434e54;
@@ -37,10 +42,10 @@ class Header implements Serializable { // TODO: make it "inline class" once futu
 	int version_hash;   		// 0x084
 	int iro_tag;         		// 0x098
 	int drm_type_version;       // 0x09C
-	String digest_entries_1;    // 0x100
-	String digest_entries_2;    // 0x120
-	String digest_table_digest; // 0x140
-	String digest_body_digest;  // 0x160
+	byte[] digest_entries_1;    // 0x100
+	byte[] digest_entries_2;    // 0x120
+	byte[] digest_table_digest; // 0x140
+	byte[] digest_body_digest;  // 0x160
 	// ...
 	int pfs_image_count;        // 0x404
 	long pfs_image_flags;       // 0x408
@@ -51,12 +56,82 @@ class Header implements Serializable { // TODO: make it "inline class" once futu
 	long pkg_size;              // 0x430
 	int pfs_signed_size;        // 0x438
 	int pfs_cache_size;         // 0x43C
-	String pfs_image_digest;    // 0x440
-	String pfs_signed_digest;   // 0x460
+	byte[] pfs_image_digest;    // 0x440
+	byte[] pfs_signed_digest;   // 0x460
 	long pfs_split_size_nth_0;  // 0x480
 	long pfs_split_size_nth_1;  // 0x488
 	// ...
-	String pkg_digest;          // 0xFE0
+	byte[] pkg_digest;          // 0xFE0
+
+	// Older program versions serialized the digests as hexadecimal strings.
+	@Serial
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("type", int.class),
+		new ObjectStreamField("file_count", int.class), new ObjectStreamField("entry_count", int.class),
+		new ObjectStreamField("sc_entry_count", short.class), new ObjectStreamField("table_offset", int.class),
+		new ObjectStreamField("entry_data_size", int.class), new ObjectStreamField("body_offset", long.class),
+		new ObjectStreamField("body_size", long.class), new ObjectStreamField("content_offset", long.class),
+		new ObjectStreamField("content_size", long.class), new ObjectStreamField("content_id", String.class),
+		new ObjectStreamField("drm_type", int.class), new ObjectStreamField("content_type", int.class),
+		new ObjectStreamField("content_flags", int.class), new ObjectStreamField("promote_size", int.class),
+		new ObjectStreamField("version_date", int.class), new ObjectStreamField("version_hash", int.class),
+		new ObjectStreamField("iro_tag", int.class), new ObjectStreamField("drm_type_version", int.class),
+		new ObjectStreamField("digest_entries_1", String.class), new ObjectStreamField("digest_entries_2", String.class),
+		new ObjectStreamField("digest_table_digest", String.class),
+		new ObjectStreamField("digest_body_digest", String.class), new ObjectStreamField("pfs_image_count", int.class),
+		new ObjectStreamField("pfs_image_flags", long.class), new ObjectStreamField("pfs_image_offset", long.class),
+		new ObjectStreamField("pfs_image_size", long.class), new ObjectStreamField("mount_image_offset", long.class),
+		new ObjectStreamField("mount_image_size", long.class), new ObjectStreamField("pkg_size", long.class),
+		new ObjectStreamField("pfs_signed_size", int.class), new ObjectStreamField("pfs_cache_size", int.class),
+		new ObjectStreamField("pfs_image_digest", String.class), new ObjectStreamField("pfs_signed_digest", String.class),
+		new ObjectStreamField("pfs_split_size_nth_0", long.class),
+		new ObjectStreamField("pfs_split_size_nth_1", long.class), new ObjectStreamField("pkg_digest", String.class) };
+
+	@Serial
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		type = fields.get("type", 0);
+		file_count = fields.get("file_count", 0);
+		entry_count = fields.get("entry_count", 0);
+		sc_entry_count = fields.get("sc_entry_count", (short) 0);
+		table_offset = fields.get("table_offset", 0);
+		entry_data_size = fields.get("entry_data_size", 0);
+		body_offset = fields.get("body_offset", 0L);
+		body_size = fields.get("body_size", 0L);
+		content_offset = fields.get("content_offset", 0L);
+		content_size = fields.get("content_size", 0L);
+		content_id = (String) fields.get("content_id", null);
+		drm_type = fields.get("drm_type", 0);
+		content_type = fields.get("content_type", 0);
+		content_flags = fields.get("content_flags", 0);
+		promote_size = fields.get("promote_size", 0);
+		version_date = fields.get("version_date", 0);
+		version_hash = fields.get("version_hash", 0);
+		iro_tag = fields.get("iro_tag", 0);
+		drm_type_version = fields.get("drm_type_version", 0);
+		digest_entries_1 = readDigest(fields, "digest_entries_1");
+		digest_entries_2 = readDigest(fields, "digest_entries_2");
+		digest_table_digest = readDigest(fields, "digest_table_digest");
+		digest_body_digest = readDigest(fields, "digest_body_digest");
+		pfs_image_count = fields.get("pfs_image_count", 0);
+		pfs_image_flags = fields.get("pfs_image_flags", 0L);
+		pfs_image_offset = fields.get("pfs_image_offset", 0L);
+		pfs_image_size = fields.get("pfs_image_size", 0L);
+		mount_image_offset = fields.get("mount_image_offset", 0L);
+		mount_image_size = fields.get("mount_image_size", 0L);
+		pkg_size = fields.get("pkg_size", 0L);
+		pfs_signed_size = fields.get("pfs_signed_size", 0);
+		pfs_cache_size = fields.get("pfs_cache_size", 0);
+		pfs_image_digest = readDigest(fields, "pfs_image_digest");
+		pfs_signed_digest = readDigest(fields, "pfs_signed_digest");
+		pfs_split_size_nth_0 = fields.get("pfs_split_size_nth_0", 0L);
+		pfs_split_size_nth_1 = fields.get("pfs_split_size_nth_1", 0L);
+		pkg_digest = readDigest(fields, "pkg_digest");
+	}
+
+	private static byte[] readDigest(ObjectInputStream.GetField fields, String name) throws IOException {
+		String hex = (String) fields.get(name, null);
+		return hex == null ? new byte[PS4PKG.DIGEST_SIZE] : Hex.hexStringToByteArray(hex);
+	}
 }
 
 // See https://www.psdevwiki.com/ps4/Param.sfo
@@ -66,20 +141,76 @@ class SFOParameter implements Serializable {
 	String value;
 }
 
+// Serialization is only used to read the PKG database of older program versions (see Catalog.readLegacyDatabase).
 public class PS4PKG implements Serializable {
 	private static final long serialVersionUID = 1L;
-	// TODO: add access modifiers (doing that is compatible with deserialization).
+	static final int DIGEST_SIZE = 32;
+	// TODO: add access modifiers.
 	String path;
 	String directory;
 	String filename;
 	Header header;
-	PS4PKGEntry[] entries;
 	SFOParameter[] params;
-	String changelog;
-	String[] digests;
 	byte isFake; // -1: not fake, 1: fake:, 0: unknown (happens when older class versions are deserialized)
+	volatile byte integrity; // Set by PkgVerifier. 1: intact, -1: corrupt, 0: not verified yet
+	volatile int[] corruptEntries; // Set by PkgVerifier. Indexes of entries that don't match their digests, or null.
+	transient long bytesRead; // Number of bytes that had to be read from the PKG file to create this object.
+	transient boolean isPartial; // Some metadata was beyond the end of the file, e.g. because it is still downloading.
+	transient long missingBytes; // Number of bytes the file was short of its full size when it was parsed.
+
+	// The file's state when it was parsed, to detect changes without parsing it again (see isUnchanged()).
+	long fileSize = -1; // -1 if unknown.
+	long modificationTime = -1; // Milliseconds; -1 if unknown.
+	String fileKey; // E.g. device and inode number; null if the platform has none.
+
+	// The heavy sections are either pinned in memory, because they are not stored anywhere yet, or can be loaded from
+	// a catalog file. If neither is the case, only the header has been parsed yet.
+	private volatile PkgSections sections;
+	private volatile Catalog.Location sectionsLocation;
+
+	// Values derived from the heavy sections that are needed to create the TableItem texts.
+	String changelogVersion;
+	boolean hasChangelog;
+	boolean isBackportChangelog; // The changelog mentions a backport.
+	byte[] compatibilityDigest; // Empty if the target entry is missing.
+	volatile ChangelogReleases changelogReleases;
+	volatile PkgSummary summary; // Null until computed; see getSummary().
+
+	/** The releases that a changelog mentions, out of a list of releases that has the specified hash code. */
+	record ChangelogReleases(int releasesHash, String[] releases) {
+	}
+
+	// Older program versions serialized one object per entry and the digests as hexadecimal strings.
+	@Serial
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("path", String.class),
+		new ObjectStreamField("directory", String.class), new ObjectStreamField("filename", String.class),
+		new ObjectStreamField("header", Header.class), new ObjectStreamField("entries", PS4PKGEntry[].class),
+		new ObjectStreamField("params", SFOParameter[].class), new ObjectStreamField("changelog", String.class),
+		new ObjectStreamField("digests", String[].class), new ObjectStreamField("isFake", byte.class) };
+
+	// Used by Catalog, which fills in the header's fields.
+	PS4PKG() {
+		header = new Header();
+	}
+
+	// Used by Catalog: sets the specified number of empty params, which are then filled in.
+	void createParams(int count) {
+		params = new SFOParameter[count];
+		for (int i = 0; i < count; i++)
+			params[i] = new SFOParameter();
+	}
 
 	public PS4PKG(String path) throws Exception {
+		this(path, false);
+	}
+
+	/**
+	 * Parses a PKG file.
+	 *
+	 * @param headerOnly if true, only the file's header is read, which is enough for a placeholder that can be listed
+	 *                   right away; see isHeaderOnly()
+	 */
+	public PS4PKG(String path, boolean headerOnly) throws Exception {
 		Path p = Paths.get(path);
 		if (!Files.isRegularFile(p))
 			throw new Exception("Not a regular file");
@@ -87,37 +218,54 @@ public class PS4PKG implements Serializable {
 		this.path = path;
 		this.directory = p.getParent().toString();
 		this.filename = p.getFileName().toString();
-
-		try (var file = new RandomAccessFile(path, "r"); var channel = file.getChannel()) {
-			MappedByteBuffer mbb = channel.map(FileChannel.MapMode.READ_ONLY, 0,
-				channel.size() > Integer.MAX_VALUE ? Integer.MAX_VALUE : channel.size());
-			load(mbb);
-
-            // Workaround to release the file handler.
-            if (Platform.isWindows) {
-                mbb = null;
-                System.gc();
-            }
+		setFileAttributes(Files.readAttributes(p, BasicFileAttributes.class));
+
+		// Only the required byte ranges are read, instead of mapping the whole file.
+		try (PkgReader reader = new PkgReader(p)) {
+			if (headerOnly)
+				loadHeader(reader.readHeader());
+			else {
+				load(reader);
+				PkgReader.countParsedPkg();
+			}
+			this.bytesRead = reader.getBytesRead();
+			this.missingBytes = Math.max(0, header.pkg_size - reader.getAvailableSize());
 		}
+		this.summary = PkgSummary.create(this);
 	}
 
-	public PS4PKG(byte[] buffer) throws Exception {
-		ByteBuffer bb = ByteBuffer.wrap(buffer);
-		load(bb);
+	/**
+	 * Parses a PKG from a channel, e.g. an FTP transfer, which is read sequentially and closed afterwards. Only the
+	 * beginning of the PKG is read, up to its last metadata file. The caller must set the path fields.
+	 */
+	public PS4PKG(ReadableByteChannel channel) throws Exception {
+		try (PkgReader reader = new PkgReader(channel)) {
+			load(reader);
+			PkgReader.countParsedPkg();
+			this.bytesRead = reader.getBytesRead();
+		}
 	}
 
-	private void load(ByteBuffer bb) throws Exception {
-		loadHeader(bb);
-		loadEntries(bb);
-		loadDigests(bb);
-		loadFakeStatus(bb);
-		loadParamSFO(bb);
-		loadChangelog(bb);
+	// Parses as much metadata as the file contains; partially downloaded files can lack some of it (see isPartial).
+	private void load(PkgReader reader) throws Exception {
+		ByteBuffer headerBuffer = reader.readHeader();
+		loadHeader(headerBuffer);
+		long availableSize = reader.getAvailableSize();
+		if (Integer.toUnsignedLong(header.table_offset) + 0x20L * header.entry_count > availableSize) {
+			isPartial = true; // The result is header-only.
+			return;
+		}
+		PS4PKGEntries entries = loadEntries(reader);
+		isPartial = getMetadataEnd(entries) > availableSize;
+		byte[] digests = loadDigests(entries, reader);
+		loadFakeStatus(entries, reader, headerBuffer);
+		loadParamSFO(entries, reader);
+		setSections(new PkgSections(entries, digests, loadChangelog(entries, reader)));
 	}
 
 	private void loadHeader(ByteBuffer bb) throws IOException {
 		if (bb.getInt(0) != Header.MAGIC)
-			throw new IOException("Invalid magic number");
+			throw new InvalidPkgException("Invalid magic number");
 		this.header = new Header();
 
 		header.type = bb.getInt(0x004);
@@ -144,15 +292,10 @@ public class PS4PKG implements Serializable {
 		header.iro_tag = bb.getInt(0x098);
 		header.drm_type_version = bb.getInt(0x09C);
 
-		byte[] digest = new byte[32];
-		bb.get(0x100, digest);
-		header.digest_entries_1 = Hex.byteArrayToHexString(digest);
-		bb.get(0x120, digest);
-		header.digest_entries_2 = Hex.byteArrayToHexString(digest);
-		bb.get(0x140, digest);
-		header.digest_table_digest = Hex.byteArrayToHexString(digest);
-		bb.get(0x160, digest);
-		header.digest_body_digest = Hex.byteArrayToHexString(digest);
+		header.digest_entries_1 = getDigest(bb, 0x100);
+		header.digest_entries_2 = getDigest(bb, 0x120);
+		header.digest_table_digest = getDigest(bb, 0x140);
+		header.digest_body_digest = getDigest(bb, 0x160);
 
 		header.pfs_image_count = bb.getInt(0x404);
 		header.pfs_image_flags = bb.getLong(0x408);
@@ -165,87 +308,144 @@ public class PS4PKG implements Serializable {
 		header.pfs_signed_size = bb.getInt(0x438);
 		header.pfs_cache_size = bb.getInt(0x43C);
 
-		bb.get(0x440, digest);
-		header.pfs_image_digest = Hex.byteArrayToHexString(digest);
-		bb.get(0x460, digest);
-		header.pfs_image_digest = Hex.byteArrayToHexString(digest);
+		header.pfs_image_digest = getDigest(bb, 0x440);
+		header.pfs_signed_digest = getDigest(bb, 0x460);
 
 		header.pfs_split_size_nth_0 = bb.getLong(0x480);
 		header.pfs_split_size_nth_1 = bb.getLong(0x488);
 
-		bb.get(0xFE0, digest);
-		header.pkg_digest = Hex.byteArrayToHexString(digest);
+		header.pkg_digest = getDigest(bb, 0xFE0);
 	}
 
-	private void loadEntries(ByteBuffer bb) {
-		byte[] filename_table = null;
+	private static byte[] getDigest(ByteBuffer bb, int offset) {
+		byte[] digest = new byte[DIGEST_SIZE];
+		bb.get(offset, digest);
+		return digest;
+	}
+
+	private PS4PKGEntries loadEntries(PkgReader reader) throws IOException {
+		ByteBuffer bb = reader.read(Integer.toUnsignedLong(header.table_offset), 0x20 * header.entry_count,
+			PkgReader.SLOT_TABLE);
 
 		// Read entries
-		entries = new PS4PKGEntry[header.entry_count];
+		PS4PKGEntries entries = new PS4PKGEntries(header.entry_count);
+		int[] filename_offsets = new int[header.entry_count];
 		for (int i = 0; i < header.entry_count; i++) {
-			bb.position(header.table_offset + 0x20 * i);
+			bb.position(0x20 * i);
 
-			entries[i] = new PS4PKGEntry();
-			entries[i].id = bb.getInt();
-			int filename_offset = bb.getInt();
-			entries[i].flags1 = bb.getInt();
-			entries[i].flags2 = bb.getInt();
-			entries[i].offset = bb.getInt();
-			entries[i].size = bb.getInt();
+			entries.ids[i] = bb.getInt();
+			int filename_offset = filename_offsets[i] = bb.getInt();
+			entries.flags1[i] = bb.getInt();
+			entries.flags2[i] = bb.getInt();
+			entries.offsets[i] = bb.getInt();
+			entries.sizes[i] = bb.getInt();
 
 			// DEBUG
-			// System.out.printf("entry.id: 0x%08x\n", entries[i].id);
+			// System.out.printf("entry.id: 0x%08x\n", entries.ids[i]);
 			// System.out.printf("entry.filename_offset: 0x%08x\n", filename_offset);
-			// System.out.printf("entry.flags1: 0x%08x\n", entries[i].flags1);
-			// System.out.printf("entry.flags2: 0x%08x\n", entries[i].flags2);
-			// System.out.printf("entry.offset: 0x%08x\n", entries[i].offset);
-			// System.out.printf("entry.size: 0x%08x\n", entries[i].size);
-
-			// Read filename table
-			if (entries[i].id == 0x200) {
-				filename_table = new byte[entries[i].size];
-				bb.get(entries[i].offset, filename_table);
-			}
+			// System.out.printf("entry.flags1: 0x%08x\n", entries.flags1[i]);
+			// System.out.printf("entry.flags2: 0x%08x\n", entries.flags2[i]);
+			// System.out.printf("entry.offset: 0x%08x\n", entries.offsets[i]);
+			// System.out.printf("entry.size: 0x%08x\n", entries.sizes[i]);
+		}
+		entries.buildIndex();
+		prefetchFiles(entries, reader);
 
-			// Read entry's filename
+		// Read filename table
+		ByteBuffer filename_table = getFile(0x200, entries, reader);
+
+		// Read entries' filenames
+		for (int i = 0; i < header.entry_count && filename_table != null; i++) {
+			int filename_offset = filename_offsets[i];
 			if (filename_offset > 0) {
 				int strlen = 0;
-				for (int j = filename_offset; filename_table[j] != 0; j++, strlen++)
+				for (int j = filename_offset; filename_table.get(j) != 0; j++, strlen++)
 					;
-				entries[i].filename = new String(filename_table, filename_offset, strlen, StandardCharsets.UTF_8);
+				entries.filenames[i] = getString(filename_table, filename_offset, strlen);
 			}
 		}
+		return entries;
 	}
 
-	private void loadDigests(ByteBuffer bb) {
-		ByteBuffer file = getFile(0x1, bb);
-		int digest_offset = file.getInt(0x10);
-		this.digests = new String[this.header.entry_count];
+	// The files that are read while parsing a PKG.
+	private static final int[] METADATA_FILE_IDS = { 0x1, 0x10, 0x200, 0x1000, 0x1260 };
+
+	// Lets the reader fetch all files that will be read, in offset order, which streamed PKGs require.
+	private static void prefetchFiles(PS4PKGEntries entries, PkgReader reader) throws IOException {
+		long[] offsets = new long[METADATA_FILE_IDS.length];
+		int[] lengths = new int[METADATA_FILE_IDS.length];
+		int count = 0;
+		for (int id : METADATA_FILE_IDS) {
+			int i = entries.indexOf(id);
+			if (i != -1) {
+				offsets[count] = Integer.toUnsignedLong(entries.offsets[i]);
+				lengths[count++] = entries.sizes[i];
+			}
+		}
+		reader.prefetch(Arrays.copyOf(offsets, count), Arrays.copyOf(lengths, count));
+	}
 
-		byte[] bytes = new byte[32];
-		for (int i = 0; i < header.entry_count; i++) {
-			file.position(digest_offset + i * 32);
-			file.get(bytes);
-			digests[i] = Hex.byteArrayToHexString(bytes);
+	// Returns the offset after the last byte of the files that are read while parsing.
+	private static long getMetadataEnd(PS4PKGEntries entries) {
+		long end = 0;
+		for (int id : METADATA_FILE_IDS) {
+			int i = entries.indexOf(id);
+			if (i != -1)
+				end = Math.max(end, Integer.toUnsignedLong(entries.offsets[i]) + Integer.toUnsignedLong(entries.sizes[i]));
 		}
+		return end;
 	}
 
-	private byte[] genKey(byte[] contentID) {
-		MessageDigest digest;
+	// Missing digests are left zeroed, like those of entries that have none.
+	private byte[] loadDigests(PS4PKGEntries entries, PkgReader reader) {
+		ByteBuffer file = getFile(0x1, entries, reader);
+		byte[] digests = new byte[this.header.entry_count * DIGEST_SIZE];
+		if (file != null)
+			file.get(file.getInt(0x10), digests);
+		return digests;
+	}
+
+	private static final int KEY_CACHE_SIZE = 1024; // Content IDs.
+	private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
 		try {
-			digest = MessageDigest.getInstance("SHA-256");
+			return MessageDigest.getInstance("SHA-256");
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException(e);
 		}
+	});
+	private static final byte[] KEY_CHECKSUM_1 = sha256.get().digest(new byte[4]);
+
+	// Maps content IDs to their derived keys; patches and DLC of a game share the same content ID.
+	private static final LinkedHashMap<String, byte[]> keyCache = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+			return size() > KEY_CACHE_SIZE;
+		}
+	};
+
+	// Returns the key of the specified content ID (which is 48 bytes long, including its padding).
+	private static byte[] getKey(byte[] contentID) {
+		String cacheKey = new String(contentID, StandardCharsets.ISO_8859_1); // Maps each byte to a char.
+		synchronized (keyCache) {
+			byte[] key = keyCache.get(cacheKey);
+			if (key != null)
+				return key;
+		}
+		byte[] key = genKey(contentID);
+		synchronized (keyCache) {
+			keyCache.put(cacheKey, key);
+		}
+		return key;
+	}
+
+	private static byte[] genKey(byte[] contentID) {
+		MessageDigest digest = sha256.get();
 
 		byte[] data = new byte[96];
-		byte[] checksum1 = digest.digest(new byte[4]);
 		byte[] checksum2 = digest.digest(contentID);
-		byte[] passcode = new byte[32];
-		Arrays.fill(passcode, (byte) 0x30);
-		System.arraycopy(checksum1, 0, data, 0, 32);
+		System.arraycopy(KEY_CHECKSUM_1, 0, data, 0, 32);
 		System.arraycopy(checksum2, 0, data, 32, 32);
-		System.arraycopy(passcode, 0, data, 64, 32);
+		Arrays.fill(data, 64, 96, (byte) 0x30); // Passcode.
 
 		byte[] key = digest.digest(data);
 		byte[] checksum = digest.digest(key);
@@ -254,15 +454,17 @@ public class PS4PKG implements Serializable {
 		return checksum;
 	}
 
-	private void loadFakeStatus(ByteBuffer bb)  {
-		ByteBuffer keys = getFile(0x10, bb);
+	private void loadFakeStatus(PS4PKGEntries entries, PkgReader reader, ByteBuffer bb)  {
+		ByteBuffer keys = getFile(0x10, entries, reader);
+		if (keys == null)
+			return; // Unknown.
 		keys.position(0x20);
 		byte[] key = new byte[32];
 		keys.get(key);
 
 		byte[] contentID = new byte[48];
 		bb.get(0x40, contentID);
-		byte[] checksum = genKey(contentID);
+		byte[] checksum = getKey(contentID);
 
 		if (Arrays.equals(key, checksum))
 			isFake = 1;
@@ -270,8 +472,8 @@ public class PS4PKG implements Serializable {
 			isFake = -1;
 	}
 
-	private void loadParamSFO(ByteBuffer bb) {
-		ByteBuffer sfo = getFile(0x1000, bb);
+	private void loadParamSFO(PS4PKGEntries entries, PkgReader reader) {
+		ByteBuffer sfo = getFile(0x1000, entries, reader);
 		if (sfo == null)
 			return;
 
@@ -281,7 +483,6 @@ public class PS4PKG implements Serializable {
 		int dataTableOffset = sfo.getInt();
 		int entryCount = sfo.getInt();
 		this.params = new SFOParameter[entryCount];
-		byte[] arr = sfo.array();
 		for (int i = 0; i < entryCount; i++) {
 			short keyOffset = sfo.getShort();
 			short fmt = sfo.getShort();
@@ -293,43 +494,147 @@ public class PS4PKG implements Serializable {
 
 			// TODO: see if this can be reduced.
 			int strlen = 0;
-			for (int j = keyTableOffset + keyOffset; arr[j] != 0; j++, strlen++)
+			for (int j = keyTableOffset + keyOffset; sfo.get(j) != 0; j++, strlen++)
 				;
-			params[i].name = new String(arr, keyTableOffset + keyOffset, strlen, StandardCharsets.UTF_8);
+			params[i].name = getString(sfo, keyTableOffset + keyOffset, strlen);
 
 			if (fmt == 0x404)
 				params[i].value = String.format("0x%08X", sfo.getInt(dataTableOffset + dataOffset));
 			else
-				params[i].value = new String(arr, dataTableOffset + dataOffset, len - 1, StandardCharsets.UTF_8);
+				params[i].value = getString(sfo, dataTableOffset + dataOffset, len - 1);
 		}
 	}
 
-	private void loadChangelog(ByteBuffer bb) {
-		ByteBuffer changelog = getFile(0x1260, bb);
+	private String loadChangelog(PS4PKGEntries entries, PkgReader reader) {
+		ByteBuffer changelog = getFile(0x1260, entries, reader);
 		if (changelog == null)
-			return;
+			return null;
 
-		this.changelog = new String(changelog.array(), StandardCharsets.UTF_8);
+		return StandardCharsets.UTF_8.decode(changelog).toString();
 	}
 
-	/** Searches for a file that has the specified ID and returns it as a ByteBuffer. */
-	private ByteBuffer getFile(int FileID, ByteBuffer bb) {
-		for (int i = 0; i < header.entry_count; i++)
-			if (entries[i].id == FileID)
-				try {
-					byte[] ba = new byte[entries[i].size];
-					bb.get(entries[i].offset, ba);
-					return ByteBuffer.wrap(ba);
-				} catch (Exception e) {
-					return null;
-				}
-		return null;
+	// Decodes a UTF-8 string directly from a (possibly read-only) buffer.
+	private static String getString(ByteBuffer bb, int offset, int length) {
+		return StandardCharsets.UTF_8.decode(bb.slice(offset, length)).toString();
+	}
+
+	/**
+	 * Looks up the file that has the specified ID and returns it as a read-only ByteBuffer. The buffer is only valid
+	 * until the next file is read.
+	 */
+	private static ByteBuffer getFile(int FileID, PS4PKGEntries entries, PkgReader reader) {
+		int i = entries.indexOf(FileID);
+		if (i == -1)
+			return null;
+		try {
+			return reader.read(Integer.toUnsignedLong(entries.offsets[i]), entries.sizes[i], PkgReader.SLOT_ENTRY);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/** Returns true if only the header has been parsed yet, i.e. there are no entries, digests, SFO and changelog. */
+	public boolean isHeaderOnly() {
+		return sections == null && sectionsLocation == null;
+	}
+
+	/**
+	 * Returns the PKG's heavy sections, loading them from the catalog or, if that fails, the PKG file, if they are not
+	 * in memory. Thread-safe.
+	 *
+	 * @return the sections, or null if the PKG is header-only or the sections could not be loaded
+	 */
+	public PkgSections getSections() {
+		return getSections(true);
+	}
+
+	/**
+	 * Like getSections(), but sections that have to be loaded are only added to the cache if keep is true, e.g. to not
+	 * flood the cache while writing a catalog.
+	 */
+	PkgSections getSections(boolean keep) {
+		PkgSections pinned = sections;
+		if (pinned != null)
+			return pinned;
+		Catalog.Location location = sectionsLocation;
+		if (location == null)
+			return null;
+
+		PkgSections cached = SectionCache.get(this);
+		if (cached != null)
+			return cached;
+
+		PkgSections loaded;
+		try {
+			loaded = Catalog.readSections(location);
+		} catch (IOException e) {
+			e.printStackTrace();
+			loaded = readSectionsFromFile();
+		}
+		if (loaded != null && keep)
+			SectionCache.put(this, loaded);
+		return loaded;
+	}
+
+	// Reads the heavy sections from the PKG file again, as long as the file has not changed.
+	private PkgSections readSectionsFromFile() {
+		try (PkgReader reader = new PkgReader(Paths.get(path))) {
+			ByteBuffer headerBuffer = reader.readHeader();
+			if (headerBuffer.getInt(0) != Header.MAGIC
+				|| !Arrays.equals(getDigest(headerBuffer, 0xFE0), header.pkg_digest))
+				throw new IOException("PKG file has changed: " + path);
+			PS4PKGEntries entries = loadEntries(reader);
+			return new PkgSections(entries, loadDigests(entries, reader), loadChangelog(entries, reader));
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/** Keeps the specified sections in memory until they have been stored (see setSectionsLocation()). */
+	void setSections(PkgSections sections) {
+		String changelog = sections.changelog();
+		hasChangelog = changelog != null;
+		changelogVersion = getChangelogVersion(changelog);
+		isBackportChangelog = changelog != null && changelog.toLowerCase().indexOf("backport") != -1;
+		compatibilityDigest = getCompatibilityDigest(sections);
+		changelogReleases = null;
+		summary = null;
+		this.sections = sections;
+	}
+
+	/**
+	 * Sets where the heavy sections are stored, so that they no longer need to be kept in memory. Sections that are in
+	 * memory are handed over to the cache.
+	 */
+	void setSectionsLocation(Catalog.Location location) {
+		sectionsLocation = location; // Before releasing the sections, for thread-safety.
+		PkgSections pinned = sections;
+		if (pinned != null) {
+			SectionCache.put(this, pinned);
+			sections = null;
+		}
+	}
+
+	/** Returns where the heavy sections are stored, or null if they are not stored yet. */
+	Catalog.Location getSectionsLocation() {
+		return sectionsLocation;
+	}
+
+	/** Returns the changelog, loading it if necessary; see getSections(). */
+	public String getChangelog() {
+		PkgSections sections = getSections();
+		return sections == null ? null : sections.changelog();
 	}
 
 	public String getChangelogVersion() {
+		return changelogVersion;
+	}
+
+	private static String getChangelogVersion(String changelog) {
 		String version = null;
 
-		if (this.changelog != null) {
+		if (changelog != null) {
 			int index = 0;
 			while ((index = changelog.indexOf("app_ver=\"", index)) != -1) {
 				index += 9;
@@ -344,6 +649,37 @@ public class PS4PKG implements Serializable {
 		return version;
 	}
 
+	/**
+	 * Returns those of the specified releases that the changelog mentions, ignoring case. The result is remembered for
+	 * the specified list, so that the changelog only has to be loaded again if the list changes. Thread-safe.
+	 */
+	public String[] getChangelogReleases(ReleaseTags.CompiledTags tags) {
+		if (!hasChangelog)
+			return new String[0];
+		int hash = tags.getReleasesHash();
+		ChangelogReleases cached = changelogReleases;
+		if (cached != null && cached.releasesHash() == hash)
+			return cached.releases();
+
+		String changelog = getChangelog();
+		if (changelog == null) // Could not be loaded.
+			return new String[0];
+		cached = new ChangelogReleases(hash, tags.findReleases(changelog));
+		changelogReleases = cached;
+		return cached.releases();
+	}
+
+	/**
+	 * Returns the PKG's summary, computing it first if necessary, e.g. for PKGs that have been received via FTP or
+	 * restored from an older catalog. Thread-safe.
+	 */
+	public PkgSummary getSummary() {
+		PkgSummary cached = summary;
+		if (cached == null)
+			summary = cached = PkgSummary.create(this);
+		return cached;
+	}
+
 	public String getSFOValue(String key) {
 		if (this.params == null)
 			return null;
@@ -354,6 +690,14 @@ public class PS4PKG implements Serializable {
 	}
 
 	public String getCompatibilityChecksum() {
+		if (compatibilityDigest == null)
+			return null;
+		return compatibilityDigest.length == 0 ? "ERROR" : Hex.byteArrayToHexString(compatibilityDigest);
+	}
+
+	// Returns the digest of the entry that the compatibility checksum is based on, an empty array if the entry is
+	// missing, or null if there is no compatibility checksum.
+	private byte[] getCompatibilityDigest(PkgSections sections) {
 		if (header.content_type == 0x1B)
 			return null;
 
@@ -369,11 +713,69 @@ public class PS4PKG implements Serializable {
 				return null;
 		}
 
-		for (int i = 0; i < header.entry_count; i++)
-			if (this.entries[i].id == target_id)
-				return digests[i];
+		int i = sections.entries().indexOf(target_id);
+		return i == -1 ? new byte[0]
+			: Arrays.copyOfRange(sections.digests(), i * DIGEST_SIZE, (i + 1) * DIGEST_SIZE);
+	}
+
+	/**
+	 * Returns the digest of the entry with the specified index, as a hexadecimal string; see getSections().
+	 *
+	 * @return the digest, or null if the PKG is header-only or its sections could not be loaded
+	 */
+	public String getDigest(int index) {
+		PkgSections sections = getSections();
+		if (sections == null)
+			return null;
+		byte[] digests = sections.digests();
+		return Hex.byteArrayToHexString(Arrays.copyOfRange(digests, index * DIGEST_SIZE, (index + 1) * DIGEST_SIZE));
+	}
+
+	@Serial
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		path = (String) fields.get("path", null);
+		directory = (String) fields.get("directory", null);
+		filename = (String) fields.get("filename", null);
+		header = (Header) fields.get("header", null);
+		params = (SFOParameter[]) fields.get("params", null);
+		isFake = fields.get("isFake", (byte) 0);
+
+		PS4PKGEntry[] legacyEntries = (PS4PKGEntry[]) fields.get("entries", null);
+		String[] legacyDigests = (String[]) fields.get("digests", null);
+		if (legacyEntries == null || legacyDigests == null)
+			return;
+		PS4PKGEntries entries = new PS4PKGEntries(legacyEntries.length);
+		for (int i = 0; i < legacyEntries.length; i++) {
+			entries.ids[i] = legacyEntries[i].id;
+			entries.flags1[i] = legacyEntries[i].flags1;
+			entries.flags2[i] = legacyEntries[i].flags2;
+			entries.offsets[i] = legacyEntries[i].offset;
+			entries.sizes[i] = legacyEntries[i].size;
+			entries.filenames[i] = legacyEntries[i].filename;
+		}
+		entries.buildIndex();
+
+		byte[] digests = new byte[legacyDigests.length * DIGEST_SIZE];
+		for (int i = 0; i < legacyDigests.length; i++)
+			System.arraycopy(Hex.hexStringToByteArray(legacyDigests[i]), 0, digests, i * DIGEST_SIZE, DIGEST_SIZE);
+		setSections(new PkgSections(entries, digests, (String) fields.get("changelog", null)));
+	}
+
+	// Remembers the file's size, modification time and file key, to detect later whether it has changed.
+	private void setFileAttributes(BasicFileAttributes attributes) {
+		this.fileSize = attributes.size();
+		this.modificationTime = attributes.lastModifiedTime().toMillis();
+		this.fileKey = attributes.fileKey() == null ? null : attributes.fileKey().toString();
+	}
 
-		return "ERROR";
+	/**
+	 * Returns true if the file's current attributes match the ones it had when it was parsed, in which case it does not
+	 * need to be parsed again.
+	 */
+	public boolean isUnchanged(BasicFileAttributes attributes) {
+		return fileSize == attributes.size() && modificationTime == attributes.lastModifiedTime().toMillis()
+			&& Objects.equals(fileKey, attributes.fileKey() == null ? null : attributes.fileKey().toString());
 	}
 
 	/** Returns true if the PKG file still exists. */
@@ -0,0 +1,67 @@
+import java.util.Arrays;
+
+// See https://www.psdevwiki.com/ps4/Package_Files#Files
+/**
+ * A PKG's entry table. To keep thousands of entries per PKG cheap, the entries are stored as parallel primitive arrays
+ * instead of one object per entry.
+ */
+public class PS4PKGEntries {
+    final int[] ids;          // 0x00
+    final int[] flags1;       // 0x08
+    final int[] flags2;       // 0x0C
+    final int[] offsets;      // 0x10
+    final int[] sizes;        // 0x14
+    final String[] filenames; // null for entries without a file name.
+    private long[] sortedKeys; // Entry IDs (upper half) and indices (lower half), sorted; null if the IDs are sorted.
+
+    PS4PKGEntries(int count) {
+        this.ids = new int[count];
+        this.flags1 = new int[count];
+        this.flags2 = new int[count];
+        this.offsets = new int[count];
+        this.sizes = new int[count];
+        this.filenames = new String[count];
+    }
+
+    /** Returns the number of entries. */
+    int count() {
+        return ids.length;
+    }
+
+    /**
+     * Prepares indexOf() for the current entry IDs; must be called after the IDs have been set. PKG entry tables are
+     * usually sorted by ID already, in which case no additional memory is needed.
+     */
+    void buildIndex() {
+        boolean isSorted = true;
+        for (int i = 1; i < ids.length && isSorted; i++)
+            isSorted = ids[i - 1] <= ids[i];
+        if (isSorted) {
+            sortedKeys = null;
+            return;
+        }
+
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++)
+            keys[i] = (long) ids[i] << 32 | i;
+        Arrays.sort(keys);
+        sortedKeys = keys;
+    }
+
+    /** Returns the index of the first entry that has the specified ID, or -1 if there is none. */
+    int indexOf(int id) {
+        if (sortedKeys != null) {
+            int i = Arrays.binarySearch(sortedKeys, (long) id << 32);
+            if (i < 0)
+                i = -i - 1;
+            return i < sortedKeys.length && (int) (sortedKeys[i] >> 32) == id ? (int) sortedKeys[i] : -1;
+        }
+
+        int i = Arrays.binarySearch(ids, id);
+        if (i < 0)
+            return -1;
+        while (i > 0 && ids[i - 1] == id)
+            i--;
+        return i;
+    }
+}
@@ -1,6 +1,7 @@
 import java.io.Serializable;
 
 // See https://www.psdevwiki.com/ps4/Package_Files#Files
+// Only used to read the PKG database of older program versions; see PS4PKGEntries for the current representation.
 public class PS4PKGEntry implements Serializable {
     private static final long serialVersionUID = 1L;
     int id;          // 0x00
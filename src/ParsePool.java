@@ -0,0 +1,158 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A worker pool that is shared by all tabs' table threads to parse PKG files concurrently. Each table thread submits
+ * its files here and collects the results in submission order, so that PKGs still show up in the order they were
+ * queued.
+ * <p>
+ * New files are parsed in two phases: first only their headers, so that they can be listed right away, then, on a
+ * separate pool with fewer, lower-priority threads, the rest of their metadata ("enrichment").
+ */
+public class ParsePool {
+	private static final int AUTOMATIC = 0;
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+	private static final ThreadFactory threadFactory = runnable -> {
+		Thread thread = new Thread(runnable, "PKG Parser #" + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	};
+
+	private static final ThreadFactory enrichmentThreadFactory = runnable -> {
+		Thread thread = new Thread(runnable, "PKG Enricher #" + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	};
+
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(getAutomaticThreadCount(),
+		getAutomaticThreadCount(), 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+	private static final ThreadPoolExecutor enrichmentExecutor = new ThreadPoolExecutor(
+		getEnrichmentThreadCount(getAutomaticThreadCount()), getEnrichmentThreadCount(getAutomaticThreadCount()), 30,
+		TimeUnit.SECONDS, new LinkedBlockingQueue<>(), enrichmentThreadFactory);
+
+	static {
+		executor.allowCoreThreadTimeOut(true);
+		enrichmentExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	private ParsePool() {
+	}
+
+	// Returns the number of enrichment threads that go with the specified number of parser threads.
+	private static int getEnrichmentThreadCount(int parserThreadCount) {
+		return Math.max(1, parserThreadCount / 2);
+	}
+
+	/** Returns the number of threads used when the user has not chosen a specific number. */
+	public static int getAutomaticThreadCount() {
+		return Math.max(2, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Sets the number of parser threads.
+	 *
+	 * @param count the number of threads, or 0 to choose one automatically
+	 */
+	public static synchronized void setThreadCount(int count) {
+		if (count <= AUTOMATIC)
+			count = getAutomaticThreadCount();
+		setPoolSize(executor, count);
+		setPoolSize(enrichmentExecutor, getEnrichmentThreadCount(count));
+	}
+
+	private static void setPoolSize(ThreadPoolExecutor executor, int count) {
+		// The maximum pool size must never be smaller than the core pool size.
+		if (count > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(count);
+			executor.setCorePoolSize(count);
+		} else {
+			executor.setCorePoolSize(count);
+			executor.setMaximumPoolSize(count);
+		}
+	}
+
+	/** Returns the current number of parser threads. */
+	public static int getThreadCount() {
+		return executor.getCorePoolSize();
+	}
+
+	/**
+	 * Queues a PKG file for parsing its header only. The Future's result is null if the file could not be parsed.
+	 * Files that turn out not to be PKGs are ignored until they change (see IgnoredFiles).
+	 *
+	 * @see #submitEnrichment(PS4PKG, Consumer)
+	 */
+	public static Future<PS4PKG> submitHeader(String path) {
+		return executor.submit(() -> {
+			if (IgnoredFiles.isIgnored(path))
+				return null;
+			try {
+				return new PS4PKG(path, true);
+			} catch (InvalidPkgException | EOFException e) { // Not a PKG, or too short to be one.
+				IgnoredFiles.add(path);
+				return null;
+			} catch (Exception e) {
+				System.err.println("File name: " + path);
+				e.printStackTrace();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Queues a header-only PKG for parsing its remaining metadata and verifying its entries. On success, the PKG is
+	 * passed to the consumer, on the enrichment thread; it can still be partial if the file is incomplete. Files whose
+	 * metadata turns out to be corrupt are ignored until they change (see IgnoredFiles), and their placeholders stay
+	 * header-only.
+	 */
+	public static void submitEnrichment(PS4PKG placeholder, Consumer<PS4PKG> consumer) {
+		enrichmentExecutor.execute(() -> {
+			if (IgnoredFiles.isIgnored(placeholder.path))
+				return;
+			PS4PKG pkg;
+			try {
+				pkg = new PS4PKG(placeholder.path);
+			} catch (InvalidPkgException | EOFException | RuntimeException e) { // Corrupt metadata.
+				System.err.println("File name: " + placeholder.path);
+				e.printStackTrace();
+				IgnoredFiles.add(placeholder.path);
+				return;
+			} catch (Exception e) {
+				System.err.println("File name: " + placeholder.path);
+				e.printStackTrace();
+				return;
+			}
+			if (pkg.missingBytes == 0) // Entries of incomplete files would seem corrupt.
+				try {
+					PkgVerifier.verifyEntries(pkg);
+				} catch (IOException e) { // Not fatal; the entries stay unverified.
+					e.printStackTrace();
+				}
+			consumer.accept(pkg);
+		});
+	}
+
+	/** Returns the number of header-only PKGs that are waiting to be enriched or that are being enriched right now. */
+	public static int getEnrichmentQueueLength() {
+		return enrichmentExecutor.getQueue().size() + enrichmentExecutor.getActiveCount();
+	}
+
+	/** Returns the number of files that are waiting to be parsed or that are being parsed right now. */
+	public static int getQueueLength() {
+		return executor.getQueue().size() + executor.getActiveCount();
+	}
+
+	/** Returns the number of files that have been parsed (successfully or not) in the current session. */
+	public static long getCompletedCount() {
+		return executor.getCompletedTaskCount();
+	}
+}
@@ -0,0 +1,91 @@
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules parsing PKG files again whose metadata was incomplete because they are still being downloaded. Instead of
+ * parsing such a file each time it is modified, it is parsed again after a delay that depends on how many bytes are
+ * still missing: a download that is almost complete is checked again soon, a huge one only every few minutes. If a
+ * download does not make progress between two attempts, the delay is doubled.
+ */
+public class PartialDownloads {
+	private static final long MIN_DELAY = 2000; // Milliseconds.
+	private static final long MAX_DELAY = 5 * 60 * 1000;
+	private static final long ASSUMED_DOWNLOAD_RATE = 10 * 1024 * 1024; // Bytes per second; just a rough guess.
+	private static final int MAX_STALL_COUNT = 8; // Doublings.
+
+	// A file's scheduled retry; the future is null while the file is being parsed again.
+	private static class Retry {
+		long missingBytes;
+		int stallCount;
+		ScheduledFuture<?> future;
+	}
+
+	private static final HashMap<String, Retry> retries = new HashMap<>(); // Guarded by itself.
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Partial Download Scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private PartialDownloads() {
+	}
+
+	/**
+	 * Schedules a partially parsed PKG file to be parsed again. Once the delay has passed, the file is passed to the
+	 * consumer (usually TabContent.addFile()), on the scheduler thread.
+	 *
+	 * @param missingBytes the number of bytes the file is still short of its full size
+	 */
+	static void schedule(String path, long missingBytes, Consumer<String> consumer) {
+		synchronized (retries) {
+			Retry retry = retries.get(path);
+			if (retry == null)
+				retries.put(path, retry = new Retry());
+			else {
+				if (retry.future != null)
+					retry.future.cancel(false);
+				if (missingBytes >= retry.missingBytes)
+					retry.stallCount = Math.min(retry.stallCount + 1, MAX_STALL_COUNT);
+				else
+					retry.stallCount = 0;
+			}
+			retry.missingBytes = missingBytes;
+
+			long delay = Math.max(MIN_DELAY, Math.min(MAX_DELAY, missingBytes / ASSUMED_DOWNLOAD_RATE * 1000));
+			delay = Math.min(MAX_DELAY, delay << retry.stallCount);
+			Retry scheduled = retry;
+			retry.future = scheduler.schedule(() -> {
+				synchronized (retries) {
+					if (retries.get(path) != scheduled)
+						return;
+					scheduled.future = null;
+				}
+				consumer.accept(path);
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Returns true if a file is waiting for its scheduled retry, in which case modifications of the file can be
+	 * ignored until then.
+	 */
+	static boolean isScheduled(String path) {
+		synchronized (retries) {
+			Retry retry = retries.get(path);
+			return retry != null && retry.future != null;
+		}
+	}
+
+	/** Forgets a file, e.g. because it has been parsed completely, deleted or removed from its tab. */
+	static void remove(String path) {
+		synchronized (retries) {
+			Retry retry = retries.remove(path);
+			if (retry != null && retry.future != null)
+				retry.future.cancel(false);
+		}
+	}
+}
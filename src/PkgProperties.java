@@ -1,9 +1,8 @@
-import java.io.File;
-import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Font;
@@ -31,6 +30,7 @@ import org.eclipse.swt.widgets.Text;
 public class PkgProperties {
 	private final Shell shell;
 	private final PS4PKG[] pkgs;
+	private final TabContent tabContent; // Where the PKGs are shown; verification results are journaled there.
 	private int pkgIndex;
 	private final Label pathLabel;
 	private final Label countLabel;
@@ -58,7 +58,10 @@ public class PkgProperties {
 			fmt = "0x%016X";
 		else if (value instanceof String)
 			fmt = "%s";
-		else
+		else if (value instanceof byte[] digest) {
+			value = Hex.byteArrayToHexString(digest);
+			fmt = "%s";
+		} else
 			return;
 
 		TableItem item = new TableItem(this.headerTable, SWT.NONE);
@@ -111,13 +114,18 @@ public class PkgProperties {
 			column.pack();
 	}
 
-	private void loadFileTable(PS4PKG pkg) {
+	private void loadFileTable(PS4PKG pkg, PkgSections sections) {
 		filesTable.removeAll();
+		if (sections == null)
+			return;
 
-		for (PS4PKGEntry entry : pkg.entries) {
+		PS4PKGEntries entries = sections.entries();
+		int[] corruptEntries = pkg.corruptEntries;
+		for (int i = 0; i < entries.count(); i++) {
+			int id = entries.ids[i];
 			TableItem item = new TableItem(filesTable, SWT.NONE);
-			item.setText(0, String.format("0x%04X", entry.id));
-			item.setText(1, entry.filename != null ? entry.filename : switch (entry.id) {
+			item.setText(0, String.format("0x%04X", id));
+			item.setText(1, entries.filenames[i] != null ? entries.filenames[i] : switch (id) {
 				case 0x0001 -> "DIGESTS";
 				case 0x0010 -> "ENTRY_KEYS";
 				case 0x0020 -> "IMAGE_KEY";
@@ -133,18 +141,33 @@ public class PkgProperties {
 				case 0x0407 -> "target-deltainfo.dat";
 				case 0x0408 -> "origin-deltainfo.dat";
 				case 0x0409 -> "psreserved.dat";
-				default -> String.format("UNKNOWN_0x%04X", entry.id);
+				default -> String.format("UNKNOWN_0x%04X", id);
 			});
-			item.setText(2, entry.flags1 == 0 ? "-" : String.format("0x%08X", entry.flags1));
-			item.setText(3, entry.flags2 == 0 ? "-" : String.format("0x%08X", entry.flags2));
-			item.setText(4, String.valueOf(entry.offset));
-			item.setText(5, String.valueOf(entry.size));
+			item.setText(2, entries.flags1[i] == 0 ? "-" : String.format("0x%08X", entries.flags1[i]));
+			item.setText(3, entries.flags2[i] == 0 ? "-" : String.format("0x%08X", entries.flags2[i]));
+			item.setText(4, String.valueOf(entries.offsets[i]));
+			item.setText(5, String.valueOf(entries.sizes[i]));
+			if (corruptEntries != null)
+				item.setText(6, !PkgVerifier.isVerifiable(entries, sections.digests(), i) ? "-"
+					: Arrays.binarySearch(corruptEntries, i) >= 0 ? "Corrupt" : "OK");
 		}
 
 		for (TableColumn column : filesTable.getColumns())
 			column.pack();
 	}
 
+	// Verifies the entries of a PKG that was parsed before entries were verified, journals the result and shows it once
+	// it is known, if the PKG is still displayed.
+	private void verifyEntries(PS4PKG pkg) {
+		Display display = shell.getDisplay();
+		PkgVerifier.submitEntries(pkg, verified -> display.asyncExec(() -> {
+			if (!tabContent.isDisposed())
+				tabContent.updatePkg(verified);
+			if (!shell.isDisposed() && pkgs[pkgIndex] == verified)
+				loadFileTable(verified, verified.getSections());
+		}));
+	}
+
 	private void loadSfoTable(PS4PKG pkg) {
 		sfoTable.removeAll();
 
@@ -170,10 +193,13 @@ public class PkgProperties {
 		updateTitle(pkg);
 		pathLabel.setText(pkg.path);
 		loadHeaderTable(pkg);
-		loadFileTable(pkg);
+		PkgSections sections = pkg.getSections(); // Null if header-only.
+		loadFileTable(pkg, sections);
+		if (sections != null && pkg.corruptEntries == null && !pkg.path.startsWith("ftp://"))
+			verifyEntries(pkg);
 		loadSfoTable(pkg);
-		if (pkg.changelog != null) {
-			changelogText.setText(pkg.changelog);
+		if (sections != null && sections.changelog() != null) {
+			changelogText.setText(sections.changelog());
 			changelogText.setEnabled(true);
 		} else {
 			changelogText.setText("");
@@ -182,10 +208,11 @@ public class PkgProperties {
 		updateCountLabel();
 	}
 
-	public PkgProperties(Shell parent, PS4PKG[] pkgs, int index) {
+	public PkgProperties(Shell parent, PS4PKG[] pkgs, int index, TabContent tabContent) {
 		this.shell = new Shell(Display.getCurrent(), SWT.SHELL_TRIM);
 		shell.setLayout(new BorderLayout());
 		this.pkgs = pkgs;
+		this.tabContent = tabContent;
 		this.pkgIndex = index;
 
 		// Create top navigation bar.
@@ -249,6 +276,8 @@ public class PkgProperties {
 		offset.setText("Offset");
 		TableColumn size = new TableColumn(filesTable, SWT.RIGHT);
 		size.setText("Size");
+		TableColumn integrity = new TableColumn(filesTable, SWT.LEFT);
+		integrity.setText("Integrity");
 		new TableColumn(filesTable, SWT.RIGHT);
 		filesTable.setHeaderVisible(true);
 		filesTable.setLinesVisible(true);
@@ -264,6 +293,11 @@ public class PkgProperties {
 				new ErrorMessage(shell, "PKG file not found.");
 				return;
 			}
+			PkgSections sections = pkg.getSections();
+			if (sections == null) {
+				new ErrorMessage(shell, "PKG entries unavailable.");
+				return;
+			}
 
 			FileDialog fd = new FileDialog(shell, SWT.SAVE);
 			fd.setText("Select File Name");
@@ -273,29 +307,21 @@ public class PkgProperties {
 				return;
 			int fileID = Integer.decode(filesTable.getSelection()[0].getText(0));
 
-			try (var pkgFile = new RandomAccessFile(pkg.path, "r"); var channel = pkgFile.getChannel()) {
-				MappedByteBuffer mbb = channel.map(FileChannel.MapMode.READ_ONLY, 0,
-					channel.size() > Integer.MAX_VALUE ? Integer.MAX_VALUE : channel.size());
-				PS4PKGEntry[] entries = pkg.entries;
-				for (int i = 0; i < pkg.header.entry_count; i++)
-					if (entries[i].id == fileID)
-						try {
-							byte[] ba = new byte[entries[i].size];
-							mbb.get(entries[i].offset, ba);
-
-							File outputFile = new File(filename);
-							Files.write(outputFile.toPath(), ba);
-						} catch (Exception exWrite) {
-							exWrite.printStackTrace();
-							new ErrorMessage(shell, String.format("Error while writing to file\n\"%s\"", filename));
-							return;
-						}
-			} catch (Exception exRead) {
-				exRead.printStackTrace();
-				new ErrorMessage(shell, "Error while reading data from PKG file.");
+			PS4PKGEntries entries = sections.entries();
+			int i = entries.indexOf(fileID);
+			if (i == -1)
 				return;
-			}
 
+			// Streamed instead of being read into memory, as entries can be large.
+			try (PkgReader reader = new PkgReader(Paths.get(pkg.path));
+				FileChannel output = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				reader.transferTo(Integer.toUnsignedLong(entries.offsets[i]), Integer.toUnsignedLong(entries.sizes[i]),
+					output);
+			} catch (Exception ex) {
+				ex.printStackTrace();
+				new ErrorMessage(shell, String.format("Error while extracting the file to\n\"%s\"", filename));
+			}
 		});
 		filesTable.setMenu(filesMenu);
 		filesTable.addListener(SWT.MenuDetect, e -> {
@@ -0,0 +1,236 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads selected byte ranges of a PKG, so that parsing a PKG's metadata costs a few kilobytes of I/O instead of reading
+ * the whole (possibly huge) file.
+ * <p>
+ * Files are read via positional reads. Other sources, like FTP transfers or archive entries, are read as a stream that
+ * only moves forward: bytes between two requested ranges are skipped, and a range that lies behind the current
+ * position can only be read if it has been prefetched (see prefetch()). This way, no source is ever read completely
+ * into memory.
+ * <p>
+ * Returned buffers are read-only. Usually, they are views of a small set of per-thread scratch buffers that are reused
+ * across PKGs; a buffer returned for a specific slot stays valid until the same thread reads into the same slot again.
+ * Buffers of prefetched ranges stay valid until the reader is closed.
+ */
+class PkgReader implements Closeable {
+	static final int HEADER_SIZE = 0x1000;
+
+	// Scratch buffer slots.
+	static final int SLOT_HEADER = 0;
+	static final int SLOT_TABLE = 1;
+	static final int SLOT_ENTRY = 2;
+	private static final int SLOT_SKIP = 3; // Skipped and copied bytes; separate, as skipping precedes reading.
+	private static final int SLOT_COUNT = 4;
+
+	// Requests larger than this get a one-time buffer so that threads don't keep huge scratch buffers alive.
+	private static final int MAX_SCRATCH_SIZE = 1024 * 1024;
+	private static final int SKIP_BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<ByteBuffer[]> scratchBuffers = ThreadLocal
+		.withInitial(() -> new ByteBuffer[SLOT_COUNT]);
+
+	// Session statistics, displayed in the "About" dialog.
+	private static final AtomicLong totalBytesRead = new AtomicLong();
+	private static final AtomicLong totalPkgCount = new AtomicLong();
+
+	private final ReadableByteChannel channel;
+	private final FileChannel fileChannel; // Null if the channel can only be read sequentially.
+	private long position; // Of the sequential channel.
+	private final HashMap<Long, ByteBuffer> prefetched = new HashMap<>(); // Offset -> range.
+	private long bytesRead;
+
+	/** Opens a PKG file for reading. */
+	PkgReader(Path path) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ));
+	}
+
+	/**
+	 * Reads a PKG from a channel, which is closed when the reader is closed. If it is not a FileChannel, it is read
+	 * sequentially, starting at offset 0.
+	 */
+	PkgReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		this.fileChannel = channel instanceof FileChannel fc ? fc : null;
+	}
+
+	private static ByteBuffer getScratchBuffer(int slot, int length) {
+		if (length > MAX_SCRATCH_SIZE)
+			return ByteBuffer.allocate(length);
+
+		ByteBuffer[] buffers = scratchBuffers.get();
+		ByteBuffer buffer = buffers[slot];
+		if (buffer == null || buffer.capacity() < length) {
+			int capacity = Math.max(length, buffer == null ? HEADER_SIZE : Math.min(buffer.capacity() * 2,
+				MAX_SCRATCH_SIZE));
+			buffer = ByteBuffer.allocate(capacity);
+			buffers[slot] = buffer;
+		}
+		buffer.clear().limit(length);
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		return buffer;
+	}
+
+	/**
+	 * Reads a byte range, usually into one of the current thread's scratch buffers.
+	 *
+	 * @return a read-only, big-endian buffer whose position is 0 and whose limit is the requested length
+	 * @throws EOFException if the range exceeds the available data
+	 */
+	ByteBuffer read(long offset, int length, int slot) throws IOException {
+		if (offset < 0 || length < 0)
+			throw new IOException(String.format("Invalid range (offset %d, length %d)", offset, length));
+
+		ByteBuffer buffer = prefetched.get(offset);
+		if (buffer != null && buffer.capacity() >= length)
+			return buffer.asReadOnlyBuffer().limit(length);
+
+		// A corrupt length must not allocate a huge one-time buffer.
+		if (length > MAX_SCRATCH_SIZE && offset + length > getAvailableSize())
+			throw new EOFException("Unexpected end of file");
+		buffer = getScratchBuffer(slot, length);
+		fill(buffer, offset);
+		return buffer.asReadOnlyBuffer();
+	}
+
+	// Fills a buffer with the data at the specified offset and resets its position to 0.
+	private void fill(ByteBuffer buffer, long offset) throws IOException {
+		if (fileChannel != null) {
+			while (buffer.hasRemaining())
+				if (fileChannel.read(buffer, offset + buffer.position()) == -1)
+					throw new EOFException("Unexpected end of file");
+		} else {
+			if (offset < position)
+				throw new IOException(String.format("Can't read backwards (offset %d, position %d)", offset, position));
+			skip(offset - position);
+			while (buffer.hasRemaining())
+				if (channel.read(buffer) == -1)
+					throw new EOFException("Unexpected end of data");
+			position += buffer.position();
+		}
+		bytesRead += buffer.position();
+		buffer.position(0);
+	}
+
+	// Reads and discards bytes of the sequential channel.
+	private void skip(long count) throws IOException {
+		copy(count, null);
+	}
+
+	// Reads bytes of the sequential channel and writes them to a channel, or discards them if it is null.
+	private void copy(long count, WritableByteChannel target) throws IOException {
+		if (count == 0)
+			return;
+		ByteBuffer buffer = getScratchBuffer(SLOT_SKIP, (int) Math.min(count, SKIP_BUFFER_SIZE));
+		while (count > 0) {
+			buffer.clear().limit((int) Math.min(count, buffer.capacity()));
+			int n = channel.read(buffer);
+			if (n == -1)
+				throw new EOFException("Unexpected end of data");
+			if (target != null)
+				for (buffer.flip(); buffer.hasRemaining();)
+					target.write(buffer);
+			count -= n;
+			position += n;
+			bytesRead += n;
+		}
+	}
+
+	/**
+	 * Copies a byte range to a channel without holding it in memory as a whole, e.g. to extract a large file. File
+	 * channels transfer it directly; sequential channels pass it through a bounded scratch buffer.
+	 *
+	 * @throws EOFException if the range exceeds the available data
+	 */
+	void transferTo(long offset, long length, WritableByteChannel target) throws IOException {
+		if (offset < 0 || length < 0)
+			throw new IOException(String.format("Invalid range (offset %d, length %d)", offset, length));
+
+		if (fileChannel != null) {
+			if (offset + length > fileChannel.size())
+				throw new EOFException("Unexpected end of file");
+			for (long transferred = 0; transferred < length;) {
+				long n = fileChannel.transferTo(offset + transferred, length - transferred, target);
+				if (n <= 0)
+					throw new EOFException("Unexpected end of file");
+				transferred += n;
+				bytesRead += n;
+			}
+		} else {
+			if (offset < position)
+				throw new IOException(String.format("Can't read backwards (offset %d, position %d)", offset, position));
+			skip(offset - position);
+			copy(length, target);
+		}
+	}
+
+	/**
+	 * Announces byte ranges that will be read soon, in any order. Sequential channels read them right away, in offset
+	 * order, into buffers of their own; file channels ignore the announcement. Ranges that can't be read anymore are
+	 * left out, so that reading them fails later.
+	 */
+	void prefetch(long[] offsets, int[] lengths) throws IOException {
+		if (fileChannel != null)
+			return;
+
+		Integer[] order = new Integer[offsets.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> Long.compare(offsets[a], offsets[b]));
+		for (int i : order) {
+			if (offsets[i] < position || lengths[i] < 0 || prefetched.containsKey(offsets[i]))
+				continue; // E.g. overlapping ranges.
+			ByteBuffer buffer = ByteBuffer.allocate(lengths[i]);
+			fill(buffer, offsets[i]);
+			prefetched.put(offsets[i], buffer);
+		}
+	}
+
+	/** Returns the number of bytes that can be read, or Long.MAX_VALUE if that is unknown. */
+	long getAvailableSize() throws IOException {
+		return fileChannel != null ? fileChannel.size() : Long.MAX_VALUE;
+	}
+
+	/** Reads the PKG header. */
+	ByteBuffer readHeader() throws IOException {
+		return read(0, HEADER_SIZE, SLOT_HEADER);
+	}
+
+	/** Returns the number of bytes read so far. */
+	long getBytesRead() {
+		return bytesRead;
+	}
+
+	@Override
+	public void close() throws IOException {
+		totalBytesRead.addAndGet(bytesRead);
+		channel.close();
+	}
+
+	/** Returns the number of PKG bytes read in the current session. */
+	static long getTotalBytesRead() {
+		return totalBytesRead.get();
+	}
+
+	/** Counts a PKG whose metadata has been parsed completely. Called once per parse, not once per reader. */
+	static void countParsedPkg() {
+		totalPkgCount.incrementAndGet();
+	}
+
+	/** Returns the number of PKGs whose metadata has been parsed completely in the current session. */
+	static long getTotalPkgCount() {
+		return totalPkgCount.get();
+	}
+}
@@ -0,0 +1,14 @@
+/**
+ * A PKG's heavy metadata sections: its entries, their digests and its changelog. Unlike the rest of a PS4PKG, they are
+ * not kept in memory all the time, but loaded on demand (see PS4PKG.getSections()).
+ */
+record PkgSections(PS4PKGEntries entries, byte[] digests, String changelog) {
+	// Roughly the number of bytes this object occupies in memory.
+	long estimateSize() {
+		long size = 64 + digests.length;
+		size += entries.count() * 96L; // Arrays, index and file name references; most file names are shared.
+		if (changelog != null)
+			size += 40 + changelog.length();
+		return size;
+	}
+}
@@ -0,0 +1,155 @@
+/**
+ * The typed values that a PKG's table row is made of, except for those that depend on the settings (title and release
+ * tags) or can change later (fake and integrity status). Computed once per parsed PKG and stored in the catalog, so
+ * that neither param.sfo strings nor texts have to be parsed again. Texts are only rendered when a row needs them (see
+ * TableItemData). The content's version is kept as displayed text, as packing it loses its notation (e.g. "1.5").
+ */
+public record PkgSummary(String titleID, Region region, Type type, String versionText, int version, int sdk,
+	int firmware, boolean isBackport, long size, String checksum) {
+	static final String DATA_MISSING = "[N/A]";
+
+	// Special values of the packed versions, which are (major << 16 | minor); see SortKeys.encodeVersion().
+	static final int NOT_APPLICABLE = -1; // E.g. a DLC's SDK version; displayed as empty text.
+	static final int UNKNOWN = -2; // Displayed as "?".
+	static final int MISSING = -3; // Displayed as DATA_MISSING.
+
+	private static final int BACKPORT_SDK = 5 << 16 | 5; // 5.05.
+
+	// The catalog stores the ordinals of these enums: existing constants must never be reordered or removed.
+	enum Region {
+		ASIA("Asia"), EUROPE("Europe"), JAPAN("Japan"), USA("USA"), WORLD("World"), UNKNOWN("Unknown");
+
+		final String text;
+
+		Region(String text) {
+			this.text = text;
+		}
+
+		// Returns the region that a content ID's first character stands for.
+		static Region get(String contentID) {
+			return switch (contentID.isEmpty() ? ' ' : contentID.charAt(0)) {
+				case 'E' -> EUROPE;
+				case 'H' -> ASIA;
+				case 'I' -> WORLD;
+				case 'J' -> JAPAN;
+				case 'U' -> USA;
+				default -> UNKNOWN;
+			};
+		}
+	}
+
+	enum Type {
+		APP("App"), PATCH("Patch"), DLC("DLC"), OTHER("Other"), UNKNOWN(DATA_MISSING);
+
+		final String text;
+
+		Type(String text) {
+			this.text = text;
+		}
+	}
+
+	/** Computes a PKG's summary. Thread-safe. */
+	static PkgSummary create(PS4PKG pkg) {
+		// Get Title ID.
+		String titleID = pkg.getSFOValue("TITLE_ID");
+		if (titleID == null) // Placeholders take it from the content ID, e.g. "UP0000-CUSA00000_00-...".
+			titleID = pkg.isHeaderOnly() && pkg.header.content_id.length() >= 16
+				? pkg.header.content_id.substring(7, 16) : DATA_MISSING;
+
+		// Get Version.
+		String versionText;
+		int version;
+		if ((versionText = pkg.getChangelogVersion()) == null && (versionText = pkg.getSFOValue("APP_VER")) == null
+			&& (versionText = pkg.getSFOValue("VERSION")) == null) {
+			versionText = DATA_MISSING;
+			version = MISSING;
+		} else {
+			if ((version = SortKeys.encodeVersion(versionText)) == Integer.MAX_VALUE)
+				version = UNKNOWN;
+			if (versionText.length() > 1 && versionText.charAt(0) == '0')
+				versionText = versionText.substring(1);
+		}
+
+		// Get Type.
+		Type type;
+		String category = pkg.getSFOValue("CATEGORY");
+		if (category == null)
+			type = pkg.isHeaderOnly() ? getTypeFromHeader(pkg.header.content_type, pkg.header.content_flags)
+				: Type.UNKNOWN;
+		else if (category.startsWith("gd"))
+			type = Type.APP;
+		else if (category.startsWith("gp"))
+			type = Type.PATCH;
+		else if (category.equals("ac"))
+			type = Type.DLC;
+		else
+			type = Type.OTHER;
+
+		// Get SDK and FW, e.g. "sdk_ver=05050001" and "0x05050000".
+		int sdk;
+		int firmware;
+		if (type == Type.DLC) {
+			sdk = NOT_APPLICABLE;
+			firmware = NOT_APPLICABLE;
+		} else {
+			String pubtoolinfo = pkg.getSFOValue("PUBTOOLINFO");
+			int index = pubtoolinfo == null ? -1 : pubtoolinfo.indexOf("sdk_ver=");
+			sdk = index == -1 ? UNKNOWN : parseDigits(pubtoolinfo, index + 8);
+			String system_ver = pkg.getSFOValue("SYSTEM_VER");
+			firmware = system_ver == null ? UNKNOWN : parseDigits(system_ver, 2);
+		}
+
+		// Get Backport.
+		String filename = pkg.filename.toLowerCase();
+		boolean isBackport = sdk == BACKPORT_SDK || filename.contains("bp") || filename.contains("backport")
+			|| pkg.isBackportChangelog;
+
+		// Get Compatibility Checksum.
+		String checksum = pkg.getCompatibilityChecksum();
+
+		return new PkgSummary(titleID, Region.get(pkg.header.content_id), type, versionText, version, sdk, firmware,
+			isBackport, pkg.header.pkg_size, checksum == null ? "" : checksum);
+	}
+
+	// Guesses a header-only PKG's type, which is normally taken from its param.sfo's category.
+	private static Type getTypeFromHeader(int contentType, int contentFlags) {
+		if (contentType == 0x1B)
+			return Type.DLC;
+		if (contentType != 0x1A)
+			return Type.OTHER;
+		if ((contentFlags & (0x00100000 | 0x40000000)) != 0) // FIRST_PATCH, SUBSEQUENT_PATCH.
+			return Type.PATCH;
+		return Type.APP;
+	}
+
+	// Packs a version that is stored as 4 digits at the specified index, e.g. "0505" for 5.05.
+	private static int parseDigits(String s, int index) {
+		if (index + 4 > s.length())
+			return UNKNOWN;
+		int version = SortKeys.encodeVersion(s.substring(index, index + 2) + '.' + s.substring(index + 2, index + 4));
+		return version == Integer.MAX_VALUE ? UNKNOWN : version;
+	}
+
+	/** Renders a packed version, e.g. "1.05" (SDK and firmware versions always have 2 minor digits). */
+	static String renderVersion(int version) {
+		return switch (version) {
+			case NOT_APPLICABLE -> "";
+			case UNKNOWN -> "?";
+			case MISSING -> DATA_MISSING;
+			default -> {
+				int minor = version & 0xFFFF;
+				yield (version >>> 16) + (minor < 10 ? ".0" : ".") + minor;
+			}
+		};
+	}
+
+	/** Renders a size in decimal units, e.g. "1.23 GB". */
+	static String renderSize(long size) {
+		if (size > 1000000000)
+			return String.format("%.02f GB", (double) size / 1000000000);
+		else if (size > 1000000)
+			return String.format("%d MB", Math.round((double) size / 1000000));
+		else
+			return String.format("%d KB", Math.round((double) size / 1000));
+	}
+}
@@ -0,0 +1,260 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Verifies the integrity of entire PKG files in the background. A PKG's body and PFS image are read as two concurrent
+ * streams, hashed and compared with the digests in the header. Each storage device only reads a limited number of PKGs
+ * at a time, so that PKGs on different devices are verified in parallel, while a single device is not made to seek
+ * back and forth between many files.
+ * <p>
+ * Additionally, single entries can be verified against the PKG's digest table (entry 0x1), which is fast enough to be
+ * done for every newly parsed PKG.
+ */
+public class PkgVerifier {
+	private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+	private static final int ENTRY_BUFFER_SIZE = 1024 * 1024;
+	private static final int PKGS_PER_DEVICE = 1; // Each PKG is already read as two concurrent streams.
+	private static final int ENCRYPTED_FLAG = 0x80000000; // In an entry's flags1.
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+	private static final ThreadFactory threadFactory = runnable -> {
+		Thread thread = new Thread(runnable, "PKG Verifier #" + threadNumber.incrementAndGet());
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	};
+
+	// The number of threads is limited by the number of devices, see DeviceQueue.
+	private static final ExecutorService executor = Executors.newCachedThreadPool(threadFactory);
+	private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal
+		.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+	private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	});
+	private static final HashMap<Object, DeviceQueue> deviceQueues = new HashMap<>(); // Guarded by itself.
+	private static final AtomicInteger queueLength = new AtomicInteger();
+	private static final AtomicLong bytesHashed = new AtomicLong();
+
+	// The PKGs of a single device that are waiting to be verified.
+	private static class DeviceQueue {
+		final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+		int runningCount;
+	}
+
+	private PkgVerifier() {
+	}
+
+	/**
+	 * Queues a PKG for verification. Once the result is known, it is stored in the PKG's integrity field and the PKG is
+	 * passed to the consumer, on a verifier thread. If the PKG could not be read, its integrity stays unchanged.
+	 */
+	public static void submit(PS4PKG pkg, Consumer<PS4PKG> consumer) {
+		queueLength.incrementAndGet();
+		Runnable task = () -> {
+			try {
+				pkg.integrity = verify(pkg);
+				consumer.accept(pkg);
+			} catch (Exception e) {
+				System.err.println("File name: " + pkg.path);
+				e.printStackTrace();
+			} finally {
+				queueLength.decrementAndGet();
+			}
+		};
+
+		Object device;
+		try {
+			device = Files.getFileStore(Paths.get(pkg.path));
+		} catch (Exception e) { // The task will fail, too.
+			device = pkg.path;
+		}
+		synchronized (deviceQueues) {
+			DeviceQueue queue = deviceQueues.computeIfAbsent(device, key -> new DeviceQueue());
+			queue.pending.add(task);
+			startNext(queue);
+		}
+	}
+
+	// Starts a device's next tasks, as far as its limit allows. The caller must hold the lock on deviceQueues.
+	private static void startNext(DeviceQueue queue) {
+		while (queue.runningCount < PKGS_PER_DEVICE && !queue.pending.isEmpty()) {
+			Runnable task = queue.pending.poll();
+			queue.runningCount++;
+			executor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					synchronized (deviceQueues) {
+						queue.runningCount--;
+						startNext(queue);
+					}
+				}
+			});
+		}
+	}
+
+	/** Returns the number of PKGs that are waiting to be verified or that are being verified right now. */
+	public static int getQueueLength() {
+		return queueLength.get();
+	}
+
+	/** Returns the number of bytes that have been hashed in the current session. */
+	public static long getBytesHashed() {
+		return bytesHashed.get();
+	}
+
+	/**
+	 * Hashes a PKG's body and PFS image and compares the results with the header's digests.
+	 *
+	 * @return 1 if the PKG is intact, -1 if it is corrupt or truncated
+	 */
+	static byte verify(PS4PKG pkg) throws Exception {
+		Path path = Paths.get(pkg.path);
+		var header = pkg.header;
+		Future<byte[]> imageDigest = header.pfs_image_size == 0 ? null
+			: executor.submit(() -> hash(path, header.pfs_image_offset, header.pfs_image_size));
+		try {
+			byte[] bodyDigest = hash(path, header.body_offset, header.body_size);
+			if (!Arrays.equals(bodyDigest, header.digest_body_digest))
+				return -1;
+			if (imageDigest != null && !Arrays.equals(imageDigest.get(), header.pfs_image_digest))
+				return -1;
+			return 1;
+		} catch (EOFException e) {
+			return -1;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof EOFException)
+				return -1;
+			throw e;
+		} finally {
+			if (imageDigest != null)
+				imageDigest.cancel(true);
+		}
+	}
+
+	// Returns the SHA-256 digest of a file region. Each region has its own channel, as positional reads on a shared
+	// channel may be serialized on some platforms.
+	private static byte[] hash(Path path, long offset, long size) throws Exception {
+		MessageDigest digest = sha256.get();
+		digest.reset(); // In case the previous use was interrupted.
+		ByteBuffer buffer = buffers.get();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long position = offset;
+			long end = offset + size;
+			while (position < end) {
+				if (Thread.interrupted())
+					throw new InterruptedException();
+				buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+				int count = channel.read(buffer, position);
+				if (count == -1)
+					throw new EOFException("PKG file is truncated: " + path);
+				position += count;
+				digest.update(buffer.flip());
+				bytesHashed.addAndGet(count);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Returns true if an entry can be verified against the digest table. Encrypted entries can't, as their digests
+	 * refer to their decrypted data, and neither can the digest table itself.
+	 */
+	static boolean isVerifiable(PS4PKGEntries entries, byte[] digests, int index) {
+		if (entries.ids[index] == 0x1 || (entries.flags1[index] & ENCRYPTED_FLAG) != 0)
+			return false;
+		for (int i = index * PS4PKG.DIGEST_SIZE; i < (index + 1) * PS4PKG.DIGEST_SIZE; i++)
+			if (digests[i] != 0)
+				return true;
+		return false; // No digest.
+	}
+
+	/**
+	 * Hashes all verifiable entries of a PKG in parallel and compares them with the digest table. The result is stored
+	 * in the PKG's corruptEntries field.
+	 */
+	static void verifyEntries(PS4PKG pkg) throws IOException {
+		PkgSections sections = pkg.getSections();
+		if (sections == null)
+			return;
+		PS4PKGEntries entries = sections.entries();
+		byte[] digests = sections.digests();
+
+		boolean[] isCorrupt = new boolean[entries.count()];
+		try (FileChannel channel = FileChannel.open(Paths.get(pkg.path), StandardOpenOption.READ)) {
+			IntStream.range(0, entries.count()).parallel().filter(i -> isVerifiable(entries, digests, i))
+				.forEach(i -> {
+					try {
+						isCorrupt[i] = !matchesDigest(channel, entries, digests, i);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		pkg.corruptEntries = IntStream.range(0, isCorrupt.length).filter(i -> isCorrupt[i]).toArray();
+	}
+
+	// Hashes an entry with positional reads, which can be done concurrently on a shared channel.
+	private static boolean matchesDigest(FileChannel channel, PS4PKGEntries entries, byte[] digests, int index)
+		throws IOException {
+		MessageDigest digest = sha256.get();
+		digest.reset();
+		long position = Integer.toUnsignedLong(entries.offsets[index]);
+		long end = position + Integer.toUnsignedLong(entries.sizes[index]);
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(ENTRY_BUFFER_SIZE, end - position));
+		while (position < end) {
+			buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+			int count = channel.read(buffer, position);
+			if (count == -1) // Truncated.
+				return false;
+			position += count;
+			digest.update(buffer.array(), 0, count);
+		}
+		int digestOffset = index * PS4PKG.DIGEST_SIZE;
+		return Arrays.equals(digest.digest(), 0, PS4PKG.DIGEST_SIZE, digests, digestOffset,
+			digestOffset + PS4PKG.DIGEST_SIZE);
+	}
+
+	/**
+	 * Queues a PKG for verifying its entries. Once the result is known, the PKG is passed to the consumer, on a verifier
+	 * thread.
+	 */
+	public static void submitEntries(PS4PKG pkg, Consumer<PS4PKG> consumer) {
+		executor.execute(() -> {
+			try {
+				verifyEntries(pkg);
+				consumer.accept(pkg);
+			} catch (Exception e) {
+				System.err.println("File name: " + pkg.path);
+				e.printStackTrace();
+			}
+		});
+	}
+}
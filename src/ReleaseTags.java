@@ -26,6 +26,115 @@ public class ReleaseTags {
     private static ReadWriteLock lock = new ReentrantReadWriteLock();
     private static Lock readLock = lock.readLock();
     private static Lock writeLock = lock.writeLock();
+    private static volatile CompiledTags compiledTags = new CompiledTags(List.of(), List.of());
+
+    /**
+     * An immutable snapshot of the combined release tags, compiled for searching file names and changelogs in a single
+     * pass each.
+     */
+    public static class CompiledTags {
+        private final List<String> releaseGroups;
+        private final List<String> releases;
+        private final int releasesHash; // Identifies the releases that a PKG's changelog has been searched for.
+        private final TagMatcher fileNameMatcher; // Tags: release groups, followed by releases.
+        private final TagMatcher changelogMatcher; // Tags: releases.
+        private final List<String> aliases; // File name expansions of known tags, matched as separate words only.
+        private final int[] aliasTags;
+
+        private CompiledTags(List<String> releaseGroups, List<String> releases) {
+            this.releaseGroups = releaseGroups;
+            this.releases = releases;
+            this.releasesHash = releases.hashCode();
+
+            ArrayList<String> patterns = new ArrayList<>(releaseGroups);
+            patterns.addAll(releases);
+            int[] tags = new int[patterns.size()];
+            for (int i = 0; i < tags.length; i++)
+                tags[i] = i;
+            this.fileNameMatcher = new TagMatcher(patterns, tags, tags.length);
+
+            int[] releaseTags = new int[releases.size()];
+            for (int i = 0; i < releaseTags.length; i++)
+                releaseTags[i] = i;
+            this.changelogMatcher = new TagMatcher(releases, releaseTags, releases.size());
+
+            ArrayList<String> aliases = new ArrayList<>();
+            int[] aliasTags = new int[releaseGroupsMap.size() + releasesMap.size()];
+            for (Map.Entry<String, String> alias : releaseGroupsMap.entrySet())
+                addAlias(aliases, aliasTags, alias, releaseGroups, 0);
+            for (Map.Entry<String, String> alias : releasesMap.entrySet())
+                addAlias(aliases, aliasTags, alias, releases, releaseGroups.size());
+            this.aliases = List.copyOf(aliases);
+            this.aliasTags = aliasTags;
+        }
+
+        // Adds a file name expansion if its tag is known (case-insensitively).
+        private static void addAlias(List<String> aliases, int[] aliasTags, Map.Entry<String, String> alias,
+            List<String> tagList, int tagOffset) {
+            for (int i = 0; i < tagList.size(); i++)
+                if (tagList.get(i).equalsIgnoreCase(alias.getValue())) {
+                    aliasTags[aliases.size()] = tagOffset + i;
+                    aliases.add(alias.getKey());
+                    return;
+                }
+        }
+
+        // Returns true if a text contains a word, ignoring case. The word must not be preceded by a letter or digit,
+        // nor followed by one unless it ends with a delimiter itself (e.g. "moe-"); "[BLZ]" contains "blz", "oblz"
+        // doesn't.
+        private static boolean containsWord(String text, String word) {
+            boolean needsEnd = Character.isLetterOrDigit(word.charAt(word.length() - 1));
+            for (int i = 0; i + word.length() <= text.length(); i++) {
+                int end = i + word.length();
+                if (text.regionMatches(true, i, word, 0, word.length())
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))
+                    && (!needsEnd || end == text.length() || !Character.isLetterOrDigit(text.charAt(end))))
+                    return true;
+            }
+            return false;
+        }
+
+        /** Returns the hash code that identifies the releases, to be stored with the results of findReleases(). */
+        public int getReleasesHash() {
+            return releasesHash;
+        }
+
+        /** Returns the releases that a changelog mentions. */
+        public String[] findReleases(String changelog) {
+            boolean[] found = changelogMatcher.match(changelog);
+            ArrayList<String> mentioned = new ArrayList<>();
+            for (int i = 0; i < found.length; i++)
+                if (found[i])
+                    mentioned.add(releases.get(i));
+            return mentioned.toArray(new String[0]);
+        }
+
+        /**
+         * Returns a comma-separated list of the release groups and releases that a file name contains or that are
+         * mentioned by a changelog.
+         */
+        public String getTags(String fileName, String[] changelogReleases) {
+            boolean[] found = fileNameMatcher.match(fileName);
+            for (int i = 0; i < aliases.size(); i++)
+                if (!found[aliasTags[i]] && containsWord(fileName, aliases.get(i)))
+                    found[aliasTags[i]] = true;
+            for (String release : changelogReleases) {
+                int i = releases.indexOf(release);
+                if (i != -1)
+                    found[releaseGroups.size() + i] = true;
+            }
+
+            StringBuilder tags = new StringBuilder();
+            for (int i = 0; i < found.length; i++)
+                if (found[i]) {
+                    if (tags.length() != 0)
+                        tags.append(", ");
+                    int groupCount = releaseGroups.size();
+                    tags.append(i < groupCount ? releaseGroups.get(i) : releases.get(i - groupCount));
+                }
+            return tags.toString();
+        }
+    }
 
     public static String[] getHardCodedReleaseGroups() {
         return hardCodedReleaseGroups;
@@ -69,9 +178,15 @@ public class ReleaseTags {
             combinedReleases.add(userRelease);
         }
 
+        compiledTags = new CompiledTags(List.copyOf(combinedReleaseGroups), List.copyOf(combinedReleases));
         writeLock.unlock();
     }
 
+    /** Returns the current combined release tags, compiled for searching. */
+    public static CompiledTags getCompiledTags() {
+        return compiledTags;
+    }
+
     public static ArrayList<String> getJoinedReleaseGroups() {
         try {
             readLock.lock();
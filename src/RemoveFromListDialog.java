@@ -6,7 +6,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
-import org.eclipse.swt.widgets.TableItem;
 
 /** A dialog that makes sure the user really wants to remove items from a list. */
 // TODO: refactor this by extending the new YesNoDialog class.
@@ -15,7 +14,7 @@ public class RemoveFromListDialog {
     private boolean result;
     public Shell shell;
 
-    public RemoveFromListDialog(TableItem[] items) {
+    public RemoveFromListDialog(int itemCount) {
         long currentTime = System.currentTimeMillis();
         if (currentTime < timeStamp)
             return;
@@ -28,7 +27,7 @@ public class RemoveFromListDialog {
         composite.setLayout(new GridLayout(1, false));
 
         Label label = new Label(composite, SWT.NONE);
-        label.setText("Are you sure you want to remove " + (items.length == 1 ? "this item" : "these items")
+        label.setText("Are you sure you want to remove " + (itemCount == 1 ? "this item" : "these items")
             + "?\nThis cannot be undone.\n");
 
         Button checkbox = new Button(composite, SWT.CHECK);
@@ -0,0 +1,40 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used PKG sections in memory, up to a total size. The least recently used sections are
+ * evicted first; they can be loaded again from the catalog or the PKG file. Thread-safe.
+ */
+class SectionCache {
+	private static final long MAX_SIZE = 32 * 1024 * 1024; // Bytes, estimated.
+	private static final LinkedHashMap<PS4PKG, PkgSections> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private static long size;
+
+	private SectionCache() {
+	}
+
+	/** Returns a PKG's cached sections, or null if they are not cached. */
+	static synchronized PkgSections get(PS4PKG pkg) {
+		return cache.get(pkg);
+	}
+
+	/** Caches a PKG's sections, evicting the least recently used sections if the cache is full. */
+	static synchronized void put(PS4PKG pkg, PkgSections sections) {
+		PkgSections old = cache.put(pkg, sections);
+		if (old != null)
+			size -= old.estimateSize();
+		size += sections.estimateSize();
+
+		Iterator<Map.Entry<PS4PKG, PkgSections>> iterator = cache.entrySet().iterator();
+		while (size > MAX_SIZE && cache.size() > 1) {
+			size -= iterator.next().getValue().estimateSize();
+			iterator.remove();
+		}
+	}
+
+	/** Returns the estimated number of bytes that are cached. */
+	static synchronized long getSize() {
+		return size;
+	}
+}
@@ -1,4 +1,4 @@
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.GC;
@@ -28,6 +28,7 @@ public class Settings extends Dialog {
 	private static boolean[] sharedColumnVisibilities = new boolean[Column.length];
 
 	private static final int RELEASE_TAGS_ROW_COUNT = 3; // Number of rows displayed for release tag text boxes.
+	private static final int MAX_PARSER_THREADS = 32;
 
 	// public static boolean useExtendedPkgTypes = false;
 	public static String[] ps4Ips = { "127.0.0.1" };
@@ -41,6 +42,7 @@ public class Settings extends Dialog {
 		"English (United Kingdom)", "Türkçe", "Español (América Latina)", "العربية", "Français (Canada)", "Čeština",
 		"Magyar", "Ελληνικά", "Română", "ไทย", "Tiếng Việt", "Indonesia" };
 	public static int titleLanguage = 0;
+	public static int parserThreads = 0; // Number of threads used to parse PKG files; 0 means automatic.
 
 	public static int getTitleLanguage() {
 		return titleLanguage - 1;
@@ -155,7 +157,6 @@ public class Settings extends Dialog {
 		titleLanguageCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 		titleLanguageCombo.setItems(titleLanguages);
 		titleLanguageCombo.select(titleLanguage);
-		titleLanguageCombo.addListener(SWT.Selection, e -> titleLanguage = titleLanguageCombo.getSelectionIndex());
 
 		// Network
 		Composite network = new Composite(shell, SWT.NONE);
@@ -179,6 +180,24 @@ public class Settings extends Dialog {
 		ftpInfo.setText("Multiple comma-separated IPs/hostnames and ports can be specified.");
 		ftpInfo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
 
+		// Performance
+		Composite performance = new Composite(shell, SWT.NONE);
+		performance.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
+		performance.setLayout(new GridLayout(1, false));
+		Group performanceGroup = new Group(performance, SWT.NONE);
+		performanceGroup.setText("Performance");
+		performanceGroup.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		performanceGroup.setLayout(new GridLayout(2, true));
+		Label parserThreadsLabel = new Label(performanceGroup, SWT.LEFT);
+		parserThreadsLabel.setText("PKG Parser Threads:");
+		parserThreadsLabel.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false));
+		Combo parserThreadsCombo = new Combo(performanceGroup, SWT.READ_ONLY);
+		parserThreadsCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		parserThreadsCombo.add("Automatic (" + ParsePool.getAutomaticThreadCount() + ")");
+		for (int i = 1; i <= MAX_PARSER_THREADS; i++)
+			parserThreadsCombo.add(String.valueOf(i));
+		parserThreadsCombo.select(Math.min(parserThreads, MAX_PARSER_THREADS));
+
 		// Release Tags
 		Composite tags = new Composite(shell, SWT.NONE);
 		tags.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
@@ -249,22 +268,28 @@ public class Settings extends Dialog {
 					pasteSharedColumnLayoutTo(tabContent.getTable());
 			}
 
+			Settings.parserThreads = parserThreadsCombo.getSelectionIndex();
+			ParsePool.setThreadCount(Settings.parserThreads);
+
 			Settings.ps4Ips = ps4Ips.getText().split(", *");
 			Settings.ps4FtpPorts = ps4FtpPorts.getText().split(", *");
 
+			int previousTitleLanguage = Settings.titleLanguage;
+			if (titleLanguageCombo.getSelectionIndex() != -1)
+				Settings.titleLanguage = titleLanguageCombo.getSelectionIndex();
+
+			String[] previousReleaseGroups = Settings.releaseGroups;
+			String[] previousReleases = Settings.releases;
 			Settings.releaseGroups = splitUserInput(releaseGroupsText.getText());
 			Settings.releases = splitUserInput(releasesText.getText());
-			ReleaseTags.addReleaseTags(Settings.releaseGroups, Settings.releases);
-
-			// Make all table threads re-evaluate all PKGs to update the tags and Title languages.
-			// TODO: only do this if the tags have actually been changed.
-			for (TabContent tabContent : gui.getTabContents()) {
-				ArrayList<TableItemData> tableItemBuffer = tabContent.getTableItemBuffer();
-				PS4PKG[] pkgs = new PS4PKG[tableItemBuffer.size()];
-				for (int i = 0; i < tableItemBuffer.size(); i++)
-					pkgs[i] = tableItemBuffer.get(i).pkg();
-				tabContent.queue.push(pkgs);
-			}
+			boolean haveTagsChanged = !Arrays.equals(previousReleaseGroups, Settings.releaseGroups)
+				|| !Arrays.equals(previousReleases, Settings.releases);
+			if (haveTagsChanged)
+				ReleaseTags.addReleaseTags(Settings.releaseGroups, Settings.releases);
+
+			// Update the existing rows' titles and tags, without parsing their PKGs again.
+			TableRerenderer.rerender(gui.getTabContents(), Settings.titleLanguage != previousTitleLanguage,
+				haveTagsChanged);
 
 			shell.close();
 		});
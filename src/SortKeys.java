@@ -0,0 +1,48 @@
+/** Computes the typed sort keys of a table row once, so that sorting does not need to parse texts. */
+class SortKeys {
+    private SortKeys() {
+    }
+
+    static long[] create(PS4PKG pkg, PkgSummary summary, long stamp) {
+        long[] keys = new long[Column.length];
+        for (Column column : Column.values())
+            keys[column.ordinal()] = switch (column) {
+                case INDEX -> stamp;
+                case VERSION -> getVersionKey(summary.version());
+                case SDK -> getVersionKey(summary.sdk());
+                case FIRMWARE -> getVersionKey(summary.firmware());
+                case BACKPORT -> summary.isBackport() ? -1 : 0; // Check marks first.
+                case FAKE -> -TableItemData.renderFake(pkg.isFake).length();
+                case SIZE -> summary.size();
+                default -> 0;
+            };
+        return keys;
+    }
+
+    // Packed versions' special values (see PkgSummary) are sorted last.
+    private static long getVersionKey(int version) {
+        return version < 0 ? Integer.MAX_VALUE : version;
+    }
+
+    /**
+     * Encodes a version string like "1.05" as (major << 16 | minor), with the minor part scaled to 2 digits. Strings
+     * that are not versions are encoded as Integer.MAX_VALUE, so that they are sorted last.
+     */
+    static int encodeVersion(String version) {
+        int separatorIndex = version.indexOf('.');
+        String major = separatorIndex == -1 ? version : version.substring(0, separatorIndex);
+        String minor = separatorIndex == -1 ? "" : version.substring(separatorIndex + 1);
+        if (major.isEmpty() || major.length() > 4 || minor.length() > 2 || !isDigits(major) || !isDigits(minor))
+            return Integer.MAX_VALUE;
+
+        int minorValue = minor.isEmpty() ? 0 : Integer.parseInt(minor) * (minor.length() == 1 ? 10 : 1);
+        return Integer.parseInt(major) << 16 | minorValue;
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++)
+            if (s.charAt(i) < '0' || s.charAt(i) > '9')
+                return false;
+        return true;
+    }
+}
@@ -2,7 +2,17 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.DND;
@@ -35,16 +45,40 @@ import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 
 public class TabContent extends Composite {
+	private static final int PARALLEL_SORT_THRESHOLD = 8192; // Tabs with at least this many PKGs are sorted in parallel.
+	private static final int FILTER_DELAY = 150; // Milliseconds to wait for further keystrokes before filtering.
+
+	// Filters the rows of all tabs, one query at a time.
+	private static final ExecutorService filterExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Table Filter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private final GUI gui;
 	private String name;
 	private Composite searchBar;
-	private String filter = null;
+	private String filter = null; // The query that the view is filtered with.
+	private String pendingFilter; // The most recent query, which is waiting for FILTER_DELAY or being applied.
+	private final Runnable filterStarter = this::startFiltering;
+	private Future<?> filterTask;
 	private final Table table;
 	public PkgQueue<Object> queue;
 	public TableThread tableThread;
 	public WatcherThread watcherThread;
+	public final TableUpdatePump updatePump;
+	public final TableUpdatePump enrichmentPump; // Replaces header-only placeholders with complete PKGs.
 	private final ArrayList<TableItemData> tableItemBuffer; // Full, always-sorted list of table's PKGs and TableItem texts.
-	public long stamp = Long.MIN_VALUE; // Keeps track of the order in which PKGs are added in the current session.
+	private Comparator<TableItemData> tableItemDataComparator; // The buffer's current sort order.
+	private ArrayList<TableItemData> visibleItems = new ArrayList<>(); // The buffer's filtered view. The virtual table
+																		// displays exactly these items, in this order.
+	private final HashMap<String, TableItemData> pathIndex = new HashMap<>(); // Buffer items by PKG path.
+	private final TreeMap<String, TableItemData> sortedPathIndex = new TreeMap<>(); // The same, for prefix searches.
+	private final AtomicLong stamp = new AtomicLong(Long.MIN_VALUE); // Keeps track of the order in which PKGs are added
+																	 // in the current session.
+	private Set<TableItemData> rowsChangedWhileFiltering; // Rows added to or removed from the buffer since the running
+														 // filter task has started; null if none is running.
+	private final TrigramIndex searchIndex = new TrigramIndex(); // The buffer's searchable texts.
 
 	public TabContent(Composite parent, GUI gui, String name) {
 		super(parent, SWT.NONE);
@@ -56,10 +90,13 @@ public class TabContent extends Composite {
 
 		this.name = name;
 		this.table = createTable(this);
+		this.tableItemDataComparator = createTableItemDataComparator();
 
 		gui.updateCurrentSelectionStatus(null);
 		this.tableItemBuffer = new ArrayList<TableItemData>();
 		this.queue = new PkgQueue<Object>();
+		this.updatePump = new TableUpdatePump(this);
+		this.enrichmentPump = new TableUpdatePump(this, this::processEnrichedTableItemData);
 
 		this.tableThread = new TableThread(this, queue);
 		tableThread.start();
@@ -91,69 +128,317 @@ public class TabContent extends Composite {
 	// }
 	// }
 
-	public boolean tableItemTextsMatchFilter(String[] texts) {
-		if (this.filter == null)
+	/** Returns the next value that keeps track of the order in which PKGs are added. Thread-safe. */
+	public long nextStamp() {
+		return stamp.getAndIncrement();
+	}
+
+	/** Reserves a number of consecutive stamps and returns the first one. Thread-safe. */
+	public long reserveStamps(int count) {
+		return stamp.getAndAdd(count);
+	}
+
+	public boolean tableItemDataMatchesFilter(TableItemData data) {
+		return matchesFilter(data, filter);
+	}
+
+	// Returns true if a row matches a (lower-case) query, or if the query is null. Thread-safe.
+	private static boolean matchesFilter(TableItemData data, String query) {
+		if (query == null)
 			return true;
-        return texts[Column.FILENAME.ordinal()].toLowerCase().contains(filter)
-                || texts[Column.TITLE.ordinal()].toLowerCase().contains(filter)
-                || texts[Column.TITLE_ID.ordinal()].toLowerCase().contains(filter);
-    }
-
-	private void insertTableItem(int index, TableItemData data) {
-		if (tableItemTextsMatchFilter(data.texts())) {
-			TableItem item = new TableItem(table, SWT.NONE, index);
-			item.setData(data.pkg());
-			item.setText(data.texts());
-			// markIncompletePkg(item);
-		}
+		for (String text : TrigramIndex.getSearchTexts(data))
+			if (text != null && text.toLowerCase().contains(query))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Creates the comparator that defines the table's current sort order. Items that are equal in the sort column are
+	 * ordered by the order in which they were added, so that each item has a unique position that can be found via
+	 * binary search.
+	 */
+	private Comparator<TableItemData> createTableItemDataComparator() {
+		int sortDirection = table.getSortDirection();
+		Column sortColumn = sortDirection == SWT.NONE ? Column.INDEX : Column.get(table.indexOf(table.getSortColumn()));
+		int sortColumnIndex = sortColumn.ordinal();
+		int indexColumnIndex = Column.INDEX.ordinal();
+		int sign = sortDirection == Platform.SORT_DIRECTION_DESCENDING ? -1 : 1;
+
+		if (sortColumn.hasSortKey())
+			return (a, b) -> {
+				int result = Long.compare(a.sortKeys()[sortColumnIndex], b.sortKeys()[sortColumnIndex]);
+				if (result == 0)
+					result = Long.compare(a.sortKeys()[indexColumnIndex], b.sortKeys()[indexColumnIndex]);
+				return sign * result;
+			};
+
+		Comparator<String> comparator = sortColumn.comparator;
+		return (a, b) -> {
+			int result = comparator.compare(a.getText(sortColumn), b.getText(sortColumn));
+			if (result == 0)
+				result = Long.compare(a.sortKeys()[indexColumnIndex], b.sortKeys()[indexColumnIndex]);
+			return sign * result;
+		};
 	}
 
+	// Inserts data into a sorted list.
+	private static void insertSorted(ArrayList<TableItemData> list, TableItemData data,
+		Comparator<TableItemData> comparator) {
+		int index = Collections.binarySearch(list, data, comparator);
+		list.add(index < 0 ? -index - 1 : index, data);
+	}
+
+	// Inserts data into the buffer, the indexes and, if it matches the filter, the view.
 	private void addTableItem(TableItemData data) {
-		TableColumn sortColumn = table.getSortColumn();
-		int sortColumnIndex = table.indexOf(sortColumn);
-		Comparator<String> comparator = Column.get(sortColumnIndex).comparator;
-		TableItem[] items = table.getItems();
-		int itemCount = table.getItemCount();
-
-		int bufferIndex = 0;
-		int itemIndex = 0;
-		if (table.getSortDirection() == Platform.SORT_DIRECTION_DESCENDING) {
-			while (bufferIndex < itemCount && comparator.compare(data.texts()[sortColumnIndex],
-				tableItemBuffer.get(bufferIndex).texts()[sortColumnIndex]) < 0)
-				bufferIndex++;
-			while (itemIndex < itemCount
-				&& comparator.compare(data.texts()[sortColumnIndex], items[itemIndex].getText(sortColumnIndex)) < 0)
-				itemIndex++;
-		} else { // Platform.SORT_DIRECTION_ASCENDING and SWT.NONE
-			while (bufferIndex < itemCount && comparator.compare(data.texts()[sortColumnIndex],
-				tableItemBuffer.get(bufferIndex).texts()[sortColumnIndex]) >= 0)
-				bufferIndex++;
-			while (itemIndex < itemCount
-				&& comparator.compare(data.texts()[sortColumnIndex], items[itemIndex].getText(sortColumnIndex)) >= 0)
-				itemIndex++;
+		if (rowsChangedWhileFiltering != null)
+			rowsChangedWhileFiltering.add(data);
+		insertSorted(tableItemBuffer, data, tableItemDataComparator);
+		if (tableItemDataMatchesFilter(data))
+			insertSorted(visibleItems, data, tableItemDataComparator);
+		pathIndex.put(data.pkg().path, data);
+		sortedPathIndex.put(data.pkg().path, data);
+		searchIndex.add(data);
+	}
+
+	// Removes data from the buffer, the indexes and the view.
+	private void removeTableItem(TableItemData data) {
+		if (rowsChangedWhileFiltering != null)
+			rowsChangedWhileFiltering.add(data);
+		int index = Collections.binarySearch(tableItemBuffer, data, tableItemDataComparator);
+		if (index >= 0)
+			tableItemBuffer.remove(index);
+		index = Collections.binarySearch(visibleItems, data, tableItemDataComparator);
+		if (index >= 0)
+			visibleItems.remove(index);
+		pathIndex.remove(data.pkg().path);
+		sortedPathIndex.remove(data.pkg().path);
+		searchIndex.remove(data);
+	}
+
+	private void processNewTableItemData(TableItemData data) {
+		// If the PKG is already known, replace it, keeping its place in the order in which PKGs were added...
+		TableItemData oldData = pathIndex.get(data.pkg().path);
+		if (oldData != null) {
+			data.texts()[Column.INDEX.ordinal()] = oldData.texts()[Column.INDEX.ordinal()];
+			data.sortKeys()[Column.INDEX.ordinal()] = oldData.sortKeys()[Column.INDEX.ordinal()];
+			removeTableItem(oldData);
 		}
 
-		tableItemBuffer.add(bufferIndex, data);
-		insertTableItem(itemIndex, data);
-	}
-
-	public void processNewTableItemData(TableItemData data) {
-		// If the PKG is already known, replace it...
-		for (int i = 0; i < tableItemBuffer.size(); i++)
-			if (tableItemBuffer.get(i).pkg().path.equals(data.pkg().path)) {
-				tableItemBuffer.set(i, data); // Update both the buffer...
-				for (TableItem item : table.getItems()) // ...and, if it exists, the filtered item, too.
-					if (item.getText(Column.PATH.ordinal()).equals(data.pkg().path)) {
-						item.setData(data.pkg());
-						item.setText(data.texts());
-						// markIncompletePkg(item);
-						break;
-					}
-				return;
+		// ...otherwise, just add a new TableItem.
+		addTableItem(data);
+
+		// Re-rendered texts of the same PKG don't need to be journaled.
+		if (oldData == null || oldData.pkg() != data.pkg())
+			gui.recordPkgAdded(this, data.pkg());
+	}
+
+	/** Adds or replaces multiple PKGs and updates the table once afterwards. */
+	public void processNewTableItemData(TableItemData[] batch) {
+		Set<String> selectedPaths = getSelectedPaths();
+		for (TableItemData data : batch)
+			processNewTableItemData(data);
+		refreshTable(selectedPaths);
+	}
+
+	/**
+	 * Replaces header-only placeholders with their complete PKGs and updates the table once afterwards. Data whose
+	 * placeholder has been removed or replaced in the meantime is dropped.
+	 */
+	public void processEnrichedTableItemData(TableItemData[] batch) {
+		Set<String> selectedPaths = getSelectedPaths();
+		for (TableItemData data : batch) {
+			TableItemData oldData = pathIndex.get(data.pkg().path);
+			if (oldData != null && oldData.pkg().isHeaderOnly())
+				processNewTableItemData(data);
+		}
+		refreshTable(selectedPaths);
+	}
+
+	/**
+	 * Re-renders a PKG's row after the PKG itself has changed, e.g. after its verification, and journals the change. A
+	 * PKG that has been removed or replaced in the meantime is ignored.
+	 */
+	public void updatePkg(PS4PKG pkg) {
+		TableItemData oldData = pathIndex.get(pkg.path);
+		if (oldData == null || oldData.pkg() != pkg)
+			return;
+		processNewTableItemData(new TableItemData[] { tableThread.createTableItemData(pkg) });
+		gui.recordPkgAdded(this, pkg);
+	}
+
+	/**
+	 * Adds PKGs restored from the catalog and updates the table once afterwards. PKGs that are already in the tab are
+	 * skipped, as they have been added more recently. As the catalog is stored in table order, restored PKGs are
+	 * usually appended to the buffer's end.
+	 */
+	public void restoreTableItemData(TableItemData[] batch) {
+		Set<String> selectedPaths = getSelectedPaths();
+		for (TableItemData data : batch)
+			if (!pathIndex.containsKey(data.pkg().path))
+				addTableItem(data);
+		refreshTable(selectedPaths);
+	}
+
+	/**
+	 * Replaces rows with re-rendered copies of themselves (see TableRerenderer) and re-sorts the table once
+	 * afterwards. Rows that have been removed or replaced in the meantime are skipped.
+	 */
+	public void replaceTableItemData(TableItemData[] oldRows, TableItemData[] newRows) {
+		IdentityHashMap<TableItemData, TableItemData> replacements = new IdentityHashMap<>();
+		for (int i = 0; i < oldRows.length; i++) {
+			String path = oldRows[i].pkg().path;
+			if (pathIndex.get(path) != oldRows[i])
+				continue;
+			replacements.put(oldRows[i], newRows[i]);
+			pathIndex.put(path, newRows[i]);
+			sortedPathIndex.put(path, newRows[i]);
+			searchIndex.remove(oldRows[i]);
+			searchIndex.add(newRows[i]);
+		}
+		if (replacements.isEmpty())
+			return;
+
+		for (int i = 0; i < tableItemBuffer.size(); i++) {
+			TableItemData replacement = replacements.get(tableItemBuffer.get(i));
+			if (replacement != null)
+				tableItemBuffer.set(i, replacement);
+		}
+		sortTableItemBuffer(); // The sort column's texts and the filter's results may have changed.
+	}
+
+	// Returns the paths of the currently selected PKGs.
+	private Set<String> getSelectedPaths() {
+		Set<String> paths = new HashSet<>();
+		for (int index : table.getSelectionIndices())
+			paths.add(visibleItems.get(index).pkg().path);
+		return paths;
+	}
+
+	/**
+	 * Makes the virtual table display the current content of visibleItems. Previously selected PKGs stay selected if
+	 * they are still visible.
+	 */
+	private void refreshTable(Set<String> selectedPaths) {
+		table.setItemCount(visibleItems.size());
+		table.clearAll(); // Rows are re-requested via SWT.SetData once they are displayed.
+		table.deselectAll();
+		if (selectedPaths.isEmpty())
+			return;
+
+		int[] indices = new int[selectedPaths.size()];
+		int count = 0;
+		for (int i = 0; i < visibleItems.size() && count < indices.length; i++)
+			if (selectedPaths.contains(visibleItems.get(i).pkg().path))
+				indices[count++] = i;
+		table.select(Arrays.copyOf(indices, count));
+	}
+
+	/**
+	 * Sorts the buffer according to the table's current sort column and direction and rebuilds the view. Must be
+	 * called whenever these have been changed.
+	 */
+	public void sortTableItemBuffer() {
+		tableItemDataComparator = createTableItemDataComparator();
+
+		TableItemData[] items = tableItemBuffer.toArray(new TableItemData[0]);
+		if (items.length >= PARALLEL_SORT_THRESHOLD)
+			Arrays.parallelSort(items, tableItemDataComparator);
+		else
+			Arrays.sort(items, tableItemDataComparator);
+		tableItemBuffer.clear();
+		Collections.addAll(tableItemBuffer, items);
+
+		updateView();
+	}
+
+	/** Rebuilds the table's filtered view of the buffer, e.g. after the filter has changed. */
+	public void updateView() {
+		Set<String> selectedPaths = getSelectedPaths();
+		ArrayList<TableItemData> view = new ArrayList<>();
+		for (TableItemData data : tableItemBuffer)
+			if (tableItemDataMatchesFilter(data))
+				view.add(data);
+		visibleItems = view;
+		refreshTable(selectedPaths);
+	}
+
+	/**
+	 * Filters the table by a query, which is matched against file names, titles, title IDs, content IDs and release
+	 * tags, ignoring case. To not filter on each keystroke, this waits for a short time, during which further calls
+	 * replace the query. The rows are then filtered in the background; results of outdated queries are dropped.
+	 *
+	 * @param query the query, or an empty string to show all rows
+	 */
+	public void setFilter(String query) {
+		pendingFilter = query.toLowerCase();
+		getDisplay().timerExec(FILTER_DELAY, filterStarter);
+	}
+
+	// Filters the rows by the pending query in the background.
+	private void startFiltering() {
+		if (isDisposed())
+			return;
+		if (filterTask != null)
+			filterTask.cancel(true);
+
+		String query = pendingFilter.isEmpty() ? null : pendingFilter;
+		if (query == null) {
+			rowsChangedWhileFiltering = null;
+			filter = null;
+			updateView();
+			return;
+		}
+
+		// The candidates are looked up in the search index, unless the query is too short. In that case, if the query
+		// contains the current one, it can only match a subset of the current view's rows.
+		TableItemData[] rows = query.length() >= TrigramIndex.N ? null
+			: filter != null && query.contains(filter) ? visibleItems.toArray(new TableItemData[0])
+			: tableItemBuffer.toArray(new TableItemData[0]);
+		Comparator<TableItemData> comparator = tableItemDataComparator;
+		Set<TableItemData> changedRows = Collections.newSetFromMap(new IdentityHashMap<>());
+		rowsChangedWhileFiltering = changedRows;
+		filterTask = filterExecutor.submit(() -> {
+			TableItemData[] candidates = rows != null ? rows : searchIndex.getCandidates(query);
+			if (rows == null)
+				Arrays.sort(candidates, comparator); // In table order.
+
+			int[] indices = new int[candidates.length];
+			int count = 0;
+			for (int i = 0; i < candidates.length; i++) {
+				if ((i & 0xFFF) == 0 && Thread.currentThread().isInterrupted())
+					return;
+				if (matchesFilter(candidates[i], query))
+					indices[count++] = i;
 			}
+			int[] matches = Arrays.copyOf(indices, count);
+			Display.getDefault().asyncExec(() -> applyFilter(query, comparator, changedRows, candidates, matches));
+		});
+	}
 
-		// ...otherwise, add a new TableItem.
-		addTableItem(data);
+	// Makes the matching candidates the new view, unless the task is outdated. Rows that have been added or removed
+	// while filtering, which may happen continuously during imports, are matched here, so that the UI thread only has
+	// to check them instead of all rows.
+	private void applyFilter(String query, Comparator<TableItemData> comparator, Set<TableItemData> changedRows,
+		TableItemData[] candidates, int[] matches) {
+		if (isDisposed() || changedRows != rowsChangedWhileFiltering || !query.equals(pendingFilter))
+			return;
+		if (comparator != tableItemDataComparator) { // The table has been re-sorted meanwhile.
+			startFiltering();
+			return;
+		}
+
+		rowsChangedWhileFiltering = null;
+		Set<String> selectedPaths = getSelectedPaths();
+		ArrayList<TableItemData> view = new ArrayList<>(matches.length);
+		for (int index : matches)
+			if (!changedRows.contains(candidates[index]))
+				view.add(candidates[index]);
+		filter = query;
+		for (TableItemData data : changedRows)
+			if (pathIndex.get(data.pkg().path) == data && tableItemDataMatchesFilter(data))
+				insertSorted(view, data, comparator);
+		visibleItems = view;
+		refreshTable(selectedPaths);
 	}
 
 	public void enableSearchBar() {
@@ -166,18 +451,9 @@ public class TabContent extends Composite {
 
 		Text searchPrompt = new Text(searchBar, SWT.BORDER);
 		searchPrompt.setLayoutData(new GridData(GridData.FILL_HORIZONTAL | GridData.FILL_VERTICAL));
-		searchPrompt.addModifyListener(e -> {
-			table.setRedraw(false);
-			this.filter = searchPrompt.getText().toLowerCase();
-			table.removeAll();
-			for (TableItemData data : tableItemBuffer)
-				if (tableItemTextsMatchFilter(data.texts())) {
-					TableItem item = new TableItem(table, SWT.NONE);
-					item.setData(data.pkg());
-					item.setText(data.texts());
-				}
-			table.setRedraw(true);
-		});
+		searchPrompt.setToolTipText("Shows only PKGs whose file name, title, title ID, content ID or release tags "
+			+ "contain the text (ignoring case)");
+		searchPrompt.addModifyListener(e -> setFilter(searchPrompt.getText()));
 		searchPrompt.addListener(SWT.KeyDown, e -> {
 			if (e.keyCode == SWT.ESC)
 				searchPrompt.setText("");
@@ -185,10 +461,7 @@ public class TabContent extends Composite {
 
 		Button clearButton = new Button(searchBar, SWT.PUSH);
 		clearButton.setText("Reset Filter");
-		clearButton.addListener(SWT.Selection, e -> {
-			searchPrompt.setText("");
-			this.filter = null;
-		});
+		clearButton.addListener(SWT.Selection, e -> searchPrompt.setText(""));
 
 		Label separatorLabel = new Label(searchBar, SWT.SEPARATOR);
 		GridData layoutData = new GridData();
@@ -231,15 +504,14 @@ public class TabContent extends Composite {
 	 * @param path The file's absolute path.
 	 */
 	public void removeFile(String path) {
-		// Remove PKG from buffer.
-		tableItemBuffer.removeIf(data -> data.pkg().path.equals(path));
-
-		// Remove PKG from table.
-		for (TableItem item : table.getItems()) {
-			PS4PKG pkg = (PS4PKG) item.getData();
-			if (pkg.path.equals(path))
-				item.dispose();
-		}
+		TableItemData data = pathIndex.get(path);
+		if (data == null)
+			return;
+
+		Set<String> selectedPaths = getSelectedPaths();
+		removeTableItem(data);
+		gui.recordPkgRemoved(this, path);
+		refreshTable(selectedPaths);
 
 		// TODO: queued files? TableThread?
 	}
@@ -250,15 +522,18 @@ public class TabContent extends Composite {
 	 * @param parentDirectory The parent directory's absolute path.
 	 */
 	public void removeFiles(String parentDirectory) {
-		// Remove PKGs from buffer.
-		tableItemBuffer.removeIf(data -> data.pkg().path.startsWith(parentDirectory));
-
-		// Remove PKGs from table.
-		for (TableItem item : table.getItems()) {
-			PS4PKG pkg = (PS4PKG) item.getData();
-			if (pkg.path.startsWith(parentDirectory))
-				item.dispose();
+		// All paths that start with the directory form a contiguous range of the sorted path index.
+		ArrayList<TableItemData> removedItems = new ArrayList<>(
+			sortedPathIndex.subMap(parentDirectory, true, parentDirectory + Character.MAX_VALUE, false).values());
+		if (removedItems.isEmpty())
+			return;
+
+		Set<String> selectedPaths = getSelectedPaths();
+		for (TableItemData data : removedItems) {
+			removeTableItem(data);
+			gui.recordPkgRemoved(this, data.pkg().path);
 		}
+		refreshTable(selectedPaths);
 	}
 
 	/**
@@ -275,7 +550,18 @@ public class TabContent extends Composite {
 
 		MenuItem mntmProperties = new MenuItem(contextMenu, SWT.NONE);
 		mntmProperties.setText("Properties");
-		mntmProperties.addListener(SWT.Selection, e -> gui.openPkgProperties(table));
+		mntmProperties.addListener(SWT.Selection, e -> gui.openPkgProperties(this));
+
+		MenuItem mntmVerify = new MenuItem(contextMenu, SWT.NONE);
+		mntmVerify.setText("Verify Integrity");
+		mntmVerify.addListener(SWT.Selection, e -> {
+			for (PS4PKG pkg : getSelectedPkgs())
+				if (!pkg.path.startsWith("ftp://"))
+					PkgVerifier.submit(pkg, verified -> getDisplay().asyncExec(() -> {
+						if (!isDisposed())
+							updatePkg(verified);
+					}));
+		});
 
 		// TODO: enable this when implementing PKG renaming.
 		// new MenuItem(contextMenu, SWT.SEPARATOR);
@@ -299,30 +585,25 @@ public class TabContent extends Composite {
 
 		MenuItem mntmSelectAll = new MenuItem(menuSelect, SWT.NONE);
 		mntmSelectAll.setText("Select All");
-		mntmSelectAll.addListener(SWT.Selection, e -> {
-			for (TableItem item : table.getItems())
-				table.select(table.indexOf(item));
-			gui.updateCurrentSelectionStatus(table.getSelection());
-		});
+		mntmSelectAll.addListener(SWT.Selection, e -> actionSelectAll());
 
 		MenuItem mntmDeselectAll = new MenuItem(menuSelect, SWT.NONE);
 		mntmDeselectAll.setText("Deselect All");
 		mntmDeselectAll.addListener(SWT.Selection, e -> {
 			table.deselectAll();
-			gui.updateCurrentSelectionStatus(table.getSelection());
+			gui.updateCurrentSelectionStatus(null);
 		});
 
 		MenuItem mntmInvertSelection = new MenuItem(menuSelect, SWT.NONE);
 		mntmInvertSelection.setText("Invert Selection");
 		mntmInvertSelection.addListener(SWT.Selection, e -> {
-			for (TableItem item : table.getItems()) {
-				int index = table.indexOf(item);
-				if (table.isSelected(index))
-					table.deselect(index);
+			for (int i = 0; i < table.getItemCount(); i++) {
+				if (table.isSelected(i))
+					table.deselect(i);
 				else
-					table.select(index);
+					table.select(i);
 			}
-			gui.updateCurrentSelectionStatus(table.getSelection());
+			gui.updateCurrentSelectionStatus(getSelectedPkgs());
 		});
 
 		new MenuItem(menuSelect, SWT.SEPARATOR);
@@ -331,70 +612,70 @@ public class TabContent extends Composite {
 		mntmSelectExisting.setText("Select Existing");
 		mntmSelectExisting.addListener(SWT.Selection, e -> {
 			table.deselectAll();
-			for (TableItem item : table.getItems())
-				if (Files.exists(Paths.get(((PS4PKG) item.getData()).path)))
-					table.select(table.indexOf(item));
+			for (int i = 0; i < table.getItemCount(); i++)
+				if (Files.exists(Paths.get(getPkg(i).path)))
+					table.select(i);
 			table.setTopIndex(table.getSelectionIndex());
-			gui.updateCurrentSelectionStatus(table.getSelection());
+			gui.updateCurrentSelectionStatus(getSelectedPkgs());
 		});
 
 		MenuItem mntmSelectNonExisting = new MenuItem(menuSelect, SWT.NONE);
 		mntmSelectNonExisting.setText("Select Non-Existing");
 		mntmSelectNonExisting.addListener(SWT.Selection, e -> {
 			table.deselectAll();
-			for (TableItem item : table.getItems())
-				if (!Files.exists(Paths.get(((PS4PKG) item.getData()).path)))
-					table.select(table.indexOf(item));
+			for (int i = 0; i < table.getItemCount(); i++)
+				if (!Files.exists(Paths.get(getPkg(i).path)))
+					table.select(i);
 			table.setTopIndex(table.getSelectionIndex());
-			gui.updateCurrentSelectionStatus(table.getSelection());
+			gui.updateCurrentSelectionStatus(getSelectedPkgs());
 		});
 
 		MenuItem mntmSelectSynchronized = new MenuItem(menuSelect, SWT.NONE);
 		mntmSelectSynchronized.setText("Select Synchronized");
 		mntmSelectSynchronized.addListener(SWT.Selection, e -> {
 			TabContent tabContent = gui.getCurrentTabContent();
-			TableItem[] items = table.getItems();
+			PS4PKG[] items = getVisiblePkgs();
 			String[] synchedDirs = tabContent.watcherThread.getSyncedDirs();
 			table.deselectAll();
 			if (synchedDirs.length != 0) {
 				int[] synchedDirsRecursionState = tabContent.watcherThread.getSyncedDirsRecursionState();
-				for (TableItem item : items) {
-					PS4PKG pkg = (PS4PKG) item.getData();
+				for (int j = 0; j < items.length; j++) {
+					PS4PKG pkg = items[j];
 					for (int i = 0; i < synchedDirs.length; i++)
 						if (synchedDirsRecursionState[i] == 0) {
 							if (pkg.directory.equals(synchedDirs[i]))
-								table.select(table.indexOf(item));
+								table.select(j);
 						} else if (pkg.directory.startsWith(synchedDirs[i]))
-							table.select(table.indexOf(item));
+							table.select(j);
 				}
 				table.setTopIndex(table.getSelectionIndex());
 			}
-			gui.updateCurrentSelectionStatus(table.getSelection());
+			gui.updateCurrentSelectionStatus(getSelectedPkgs());
 		});
 
 		MenuItem mntmSelectNonSynchronized = new MenuItem(menuSelect, SWT.NONE);
 		mntmSelectNonSynchronized.setText("Select Non-Synchronized");
 		mntmSelectNonSynchronized.addListener(SWT.Selection, e -> {
 			TabContent tabContent = gui.getCurrentTabContent();
-			TableItem[] items = table.getItems();
+			PS4PKG[] items = getVisiblePkgs();
 			String[] synchedDirs = tabContent.watcherThread.getSyncedDirs();
 			if (synchedDirs.length == 0)
 				table.selectAll();
 			else {
 				table.deselectAll();
 				int[] synchedDirsRecursionState = tabContent.watcherThread.getSyncedDirsRecursionState();
-				for (TableItem item : items) {
-					PS4PKG pkg = (PS4PKG) item.getData();
+				for (int j = 0; j < items.length; j++) {
+					PS4PKG pkg = items[j];
 					for (int i = 0; i < synchedDirs.length; i++)
 						if (synchedDirsRecursionState[i] == 0) {
 							if (!pkg.directory.equals(synchedDirs[i]))
-								table.select(table.indexOf(item));
+								table.select(j);
 						} else if (!pkg.directory.startsWith(synchedDirs[i]))
-							table.select(table.indexOf(item));
+							table.select(j);
 				}
 				table.setTopIndex(table.getSelectionIndex());
 			}
-			gui.updateCurrentSelectionStatus(table.getSelection());
+			gui.updateCurrentSelectionStatus(getSelectedPkgs());
 		});
 
 		new MenuItem(contextMenu, SWT.SEPARATOR);
@@ -416,7 +697,7 @@ public class TabContent extends Composite {
 					item.setEnabled(false);
 
 				// Create a copy action for each menu item.
-				item.addListener(SWT.Selection, e2 -> tabContent.queue.push(getPkgs(table.getSelection())));
+				item.addListener(SWT.Selection, e2 -> tabContent.queue.push(getSelectedPkgs()));
 			}
 		});
 
@@ -438,9 +719,9 @@ public class TabContent extends Composite {
 
 				// Create a move action for each menu item.
 				item.addListener(SWT.Selection, e2 -> {
-					TableItem[] items = table.getSelection();
-					tabContent.queue.push(getPkgs(items));
-					removeTableItems(items);
+					PS4PKG[] pkgs = getSelectedPkgs();
+					tabContent.queue.push(pkgs);
+					removePkgs(pkgs);
 				});
 			}
 		});
@@ -448,21 +729,21 @@ public class TabContent extends Composite {
 		MenuItem mntmRemove = new MenuItem(contextMenu, SWT.NONE);
 		mntmRemove.setText("Remove From List");
 		mntmRemove.addListener(SWT.Selection, e -> {
-			if (new RemoveFromListDialog(table.getSelection()).open() == false)
+			if (new RemoveFromListDialog(table.getSelectionCount()).open() == false)
 				return;
 
-			removeTableItems(table.getSelection());
+			removePkgs(getSelectedPkgs());
 			gui.updateCurrentSelectionStatus(null);
 		});
 
-		TableItem[] items = table.getSelection();
-		for (TableItem item : table.getSelection()) {
-			if (((PS4PKG) item.getData()).path.startsWith("ftp://")) {
+		PS4PKG[] pkgs = getSelectedPkgs();
+		for (PS4PKG pkg : pkgs) {
+			if (pkg.path.startsWith("ftp://")) {
 				new MenuItem(contextMenu, SWT.SEPARATOR);
 				MenuItem mntmChangeFtp = new MenuItem(contextMenu, SWT.NONE);
 				mntmChangeFtp.setText("Change FTP IP/Port...");
 				mntmChangeFtp.addListener(SWT.Selection,
-					e -> new ChangeFtpPathDialog(this.getShell(), gui, this, items));
+					e -> new ChangeFtpPathDialog(this.getShell(), gui, this, pkgs));
 			}
 			break;
 		}
@@ -471,8 +752,6 @@ public class TabContent extends Composite {
 		CustomAction[] actions = CustomActions.actions;
 		if (actions != null) {
 			new MenuItem(contextMenu, SWT.SEPARATOR);
-			PS4PKG[] pkgs = new PS4PKG[items.length];
-			Arrays.setAll(pkgs, index -> (PS4PKG) items[index].getData());
 
 			for (int i = 0; i < actions.length; i++) {
 				MenuItem menuItem = new MenuItem(contextMenu, SWT.NONE);
@@ -486,38 +765,93 @@ public class TabContent extends Composite {
 	}
 
 	private void actionSelectAll() {
-		for (TableItem item : table.getItems())
-			table.select(table.indexOf(item));
-		gui.updateCurrentSelectionStatus(table.getSelection());
+		table.selectAll();
+		gui.updateCurrentSelectionStatus(getSelectedPkgs());
 	}
 
-	public PS4PKG[] getPkgs(TableItem[] items) {
-		PS4PKG[] pkgs = new PS4PKG[items.length];
-		for (int i = 0; i < items.length; i++)
-			pkgs[i] = (PS4PKG) items[i].getData();
+	/** Returns the PKG that is displayed in the specified table row. */
+	public PS4PKG getPkg(int index) {
+		return visibleItems.get(index).pkg();
+	}
+
+	/** Returns the tab's PKG that has the specified path, or null if there is none. */
+	public PS4PKG getPkg(String path) {
+		TableItemData data = pathIndex.get(path);
+		return data == null ? null : data.pkg();
+	}
+
+	/** Returns all PKGs of the tab, including the ones hidden by the filter. */
+	public PS4PKG[] getPkgs() {
+		PS4PKG[] pkgs = new PS4PKG[tableItemBuffer.size()];
+		for (int i = 0; i < pkgs.length; i++)
+			pkgs[i] = tableItemBuffer.get(i).pkg();
 		return pkgs;
 	}
 
-	/** The only safe way to remove a table item, because this removes the item from the buffer, too. */
-	public void removeTableItem(TableItem item) {
-		if (item.isDisposed())
-			return;
+	/** Returns the PKGs that are currently displayed, in table order. */
+	public PS4PKG[] getVisiblePkgs() {
+		PS4PKG[] pkgs = new PS4PKG[visibleItems.size()];
+		for (int i = 0; i < pkgs.length; i++)
+			pkgs[i] = visibleItems.get(i).pkg();
+		return pkgs;
+	}
 
-		for (TableItemData data : tableItemBuffer)
-			if (data.pkg() == item.getData()) {
-				tableItemBuffer.remove(data);
-				break;
+	/** Returns the currently selected PKGs, in table order. */
+	public PS4PKG[] getSelectedPkgs() {
+		int[] indices = table.getSelectionIndices();
+		Arrays.sort(indices);
+		PS4PKG[] pkgs = new PS4PKG[indices.length];
+		for (int i = 0; i < indices.length; i++)
+			pkgs[i] = visibleItems.get(indices[i]).pkg();
+		return pkgs;
+	}
+
+	/** The only safe way to remove PKGs from the tab, because this removes them from the buffer, too. */
+	public void removePkgs(PS4PKG[] pkgs) {
+		Set<String> selectedPaths = getSelectedPaths();
+		for (PS4PKG pkg : pkgs) {
+			TableItemData data = pathIndex.get(pkg.path);
+			if (data != null && data.pkg() == pkg) {
+				removeTableItem(data);
+				PartialDownloads.remove(pkg.path);
+				gui.recordPkgRemoved(this, pkg.path);
 			}
-		item.dispose();
+		}
+		refreshTable(selectedPaths);
 	}
 
-	/** Calls removeTableItem() on each array element. */
-	public void removeTableItems(TableItem[] items) {
-        for (TableItem item : items) removeTableItem(item);
+	/** Changes a PKG's path, e.g. after the FTP server's address has changed. */
+	public void changePkgPath(PS4PKG pkg, String path) {
+		TableItemData data = pathIndex.get(pkg.path);
+		if (data == null || data.pkg() != pkg)
+			return;
+
+		// Re-insert the item, as the new path may change its position and its index keys.
+		Set<String> selectedPaths = getSelectedPaths();
+		boolean isSelected = selectedPaths.remove(pkg.path);
+		removeTableItem(data);
+		PartialDownloads.remove(pkg.path); // Retries would add the old path again.
+		gui.recordPkgRemoved(this, pkg.path);
+
+		pkg.path = path;
+		int fileSeparatorIndex = path.lastIndexOf('/');
+		pkg.directory = path.substring(0, fileSeparatorIndex);
+		pkg.filename = path.substring(fileSeparatorIndex + 1);
+		String[] texts = data.texts();
+		texts[Column.PATH.ordinal()] = pkg.path;
+		texts[Column.DIRECTORY.ordinal()] = pkg.directory;
+		texts[Column.FILENAME.ordinal()] = pkg.filename;
+
+		addTableItem(data);
+		gui.recordPkgAdded(this, pkg);
+		if (isSelected)
+			selectedPaths.add(pkg.path);
+		refreshTable(selectedPaths);
 	}
 
 	private Table createTable(Composite parent) {
-		Table table = new Table(parent, SWT.BORDER | SWT.FULL_SELECTION | SWT.HIDE_SELECTION | SWT.MULTI);
+		Table table = new Table(parent,
+			SWT.BORDER | SWT.FULL_SELECTION | SWT.HIDE_SELECTION | SWT.MULTI | SWT.VIRTUAL);
 		table.setLayoutData(new BorderData(SWT.CENTER));
 		table.setHeaderVisible(true);
 		if (!Platform.isWindows)
@@ -527,27 +861,40 @@ public class TabContent extends Composite {
 		restoreDefaultColumnLayout(table);
 		gui.previousTable = table;
 
+		// Let the virtual table request the texts of the rows it is about to display.
+		table.addListener(SWT.SetData, e -> {
+			if (e.index >= visibleItems.size()) // E.g. restoreDefaultColumnLayout()'s dummy item.
+				return;
+			// Only render the texts of visible columns; see showColumn().
+			TableItemData data = visibleItems.get(e.index);
+			TableItem item = (TableItem) e.item;
+			for (Column column : Column.values())
+				if (table.getColumn(column.ordinal()).getWidth() != 0)
+					item.setText(column.ordinal(), data.getText(column));
+			// markIncompletePkg(item);
+		});
+
 		// Handle clicks and double-clicks.
 		table.addSelectionListener(new SelectionListener() {
 			// Update the status bar upon list item selection.
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				gui.updateCurrentSelectionStatus(table.getSelection());
+				gui.updateCurrentSelectionStatus(getSelectedPkgs());
 			}
 
 			// Open a new properties window on double-click.
 			@Override
 			public void widgetDefaultSelected(SelectionEvent e) {
-				gui.openPkgProperties(table);
+				gui.openPkgProperties(TabContent.this);
 			}
 		});
 
 		// Handle various keypress events.
 		table.addListener(SWT.KeyDown, e -> {
 			if (e.stateMask == 0 && e.character == SWT.DEL
-				&& new RemoveFromListDialog(table.getSelection()).open() == true) {
+				&& new RemoveFromListDialog(table.getSelectionCount()).open() == true) {
 				// Delete table items by pressing the DEL key.
-				removeTableItems(table.getSelection());
+				removePkgs(getSelectedPkgs());
 				gui.updateCurrentSelectionStatus(null);
 			} else if (e.stateMask == SWT.MOD1 && e.keyCode == 'a')
 				// Select all table items by pressing Ctrl-A.
@@ -640,26 +987,9 @@ public class TabContent extends Composite {
 					sortDirection = Platform.SORT_DIRECTION_ASCENDING;
 				}
 
-				Comparator<String> comparator = Column.get(table.indexOf(column)).comparator;
-				int columnIndex = table.indexOf(column);
-				table.setRedraw(false);
-				table.removeAll();
-				if (sortDirection == Platform.SORT_DIRECTION_ASCENDING)
-					tableItemBuffer.sort((a, b) -> comparator.compare(a.texts()[columnIndex], b.texts()[columnIndex]));
-				else if (sortDirection == Platform.SORT_DIRECTION_DESCENDING)
-					tableItemBuffer
-						.sort((a, b) -> -1 * comparator.compare(a.texts()[columnIndex], b.texts()[columnIndex]));
-				else
-					// 0: Column.INDEX (sort by the order in which PKGs were added)
-					tableItemBuffer.sort((a, b) -> Column.get(0).comparator.compare(a.texts()[0], b.texts()[0]));
+				// SWT.NONE sorts by Column.INDEX (the order in which PKGs were added).
 				table.setSortDirection(sortDirection);
-				for (TableItemData data : tableItemBuffer)
-					if (tableItemTextsMatchFilter(data.texts())) { // Respect current filter.
-						TableItem item = new TableItem(table, SWT.NONE);
-						item.setText(data.texts());
-						item.setData(data.pkg());
-					}
-				table.setRedraw(true);
+				sortTableItemBuffer(); // Respects the current filter.
 			}
 		};
 		for (TableColumn column : table.getColumns()) {
@@ -695,6 +1025,7 @@ public class TabContent extends Composite {
 		assert column.getWidth() == 0;
 		int width = (int) column.getData();
 		column.setWidth(width);
+		table.clearAll(); // Displayed rows lack the column's texts.
 	}
 
 	public void hideColumn(TableColumn column) {
@@ -1,2 +1,73 @@
-public record TableItemData(PS4PKG pkg, String[] texts) {
+/**
+ * A table row: a PKG, its summary, the texts that depend on the settings, and the typed keys that the table is sorted
+ * by (see {@link Column#hasSortKey()}). All other texts are rendered when they are needed first, which usually means
+ * only for rows that are displayed.
+ */
+public record TableItemData(PS4PKG pkg, PkgSummary summary, String title, String releaseTags, long[] sortKeys,
+	String[] texts) {
+	/**
+	 * @param title       the title in the current title language
+	 * @param releaseTags the release tags that are found with the current tag settings
+	 * @param stamp       the row's index; see Column.INDEX
+	 */
+	public TableItemData(PS4PKG pkg, String title, String releaseTags, long stamp) {
+		this(pkg, pkg.getSummary(), title, releaseTags, SortKeys.create(pkg, pkg.getSummary(), stamp),
+			new String[Column.length]);
+	}
+
+	/**
+	 * Returns a copy of the row with other settings-dependent texts, e.g. after the title language has changed. The
+	 * row's index and its other rendered texts are kept.
+	 */
+	public TableItemData withTexts(String title, String releaseTags) {
+		String[] texts = this.texts.clone();
+		texts[Column.TITLE.ordinal()] = null;
+		texts[Column.RELEASE_TAGS.ordinal()] = null;
+		return new TableItemData(pkg, summary, title, releaseTags, sortKeys.clone(), texts);
+	}
+
+	/**
+	 * Returns a column's text, rendering it if necessary. Can be called by multiple threads (e.g. when sorting in
+	 * parallel), in which case a text may be rendered more than once.
+	 */
+	public String getText(Column column) {
+		String text = texts[column.ordinal()];
+		if (text == null)
+			texts[column.ordinal()] = text = render(column);
+		return text;
+	}
+
+	private String render(Column column) {
+		return switch (column) {
+			case INDEX -> String.valueOf(sortKeys[Column.INDEX.ordinal()]);
+			case PATH -> pkg.path;
+			case DIRECTORY -> pkg.directory;
+			case FILENAME -> pkg.filename;
+			case TITLE -> title;
+			case TITLE_ID -> summary.titleID();
+			case REGION -> summary.region().text;
+			case TYPE -> summary.type().text;
+			case VERSION -> summary.versionText();
+			case FAKE -> renderFake(pkg.isFake);
+			case BACKPORT -> summary.isBackport() ? "\u2713" : "";
+			case SDK -> PkgSummary.renderVersion(summary.sdk());
+			case FIRMWARE -> PkgSummary.renderVersion(summary.firmware());
+			case SIZE -> PkgSummary.renderSize(summary.size());
+			case RELEASE_TAGS -> releaseTags;
+			case COMPATIBILITY_CHECKSUM -> summary.checksum();
+			case INTEGRITY -> switch (pkg.integrity) {
+				case 1 -> "OK";
+				case -1 -> "Corrupt";
+				default -> "";
+			};
+		};
+	}
+
+	static String renderFake(byte isFake) {
+		return switch (isFake) {
+			case -1 -> "";
+			case 1 -> "\u2713";
+			default -> PkgSummary.DATA_MISSING;
+		};
+	}
 }
@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Re-renders the texts that depend on the settings (titles and release tags) of all tabs' rows after these settings
+ * have changed. The PKGs' already loaded param.sfo data is used, so nothing is parsed again. Each tab's rows are
+ * re-rendered in parallel, off the user interface thread, and swapped in all at once.
+ */
+public class TableRerenderer {
+	// Runs one job after another, so that a job always starts with the rows of all previous jobs.
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Table Rerenderer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private TableRerenderer() {
+	}
+
+	/**
+	 * Re-renders the titles and/or release tags of all rows of the specified tabs, according to the current settings.
+	 * Must be called by the user interface thread.
+	 */
+	public static void rerender(TabContent[] tabContents, boolean titles, boolean releaseTags) {
+		if (!titles && !releaseTags)
+			return;
+
+		executor.execute(() -> {
+			for (TabContent tabContent : tabContents) {
+				// Read the buffer on the user interface thread, after previous jobs have been swapped in.
+				ArrayList<TableItemData[]> rows = new ArrayList<>(1);
+				Display.getDefault().syncExec(() -> {
+					if (!tabContent.isDisposed())
+						rows.add(tabContent.getTableItemBuffer().toArray(new TableItemData[0]));
+				});
+				if (rows.isEmpty())
+					continue;
+
+				TableItemData[] oldRows = rows.get(0);
+				TableItemData[] newRows = new TableItemData[oldRows.length];
+				IntStream.range(0, oldRows.length).parallel().forEach(i -> {
+					TableItemData row = oldRows[i];
+					newRows[i] = row.withTexts(titles ? TableThread.getTitle(row.pkg()) : row.title(),
+						releaseTags ? TableThread.getReleaseTags(row.pkg()) : row.releaseTags());
+				});
+
+				Display.getDefault().asyncExec(() -> {
+					if (!tabContent.isDisposed())
+						tabContent.replaceTableItemData(oldRows, newRows);
+				});
+			}
+		});
+	}
+}
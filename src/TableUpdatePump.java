@@ -0,0 +1,96 @@
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Collects TableItemData produced by a tab's worker threads and inserts it into the tab's table in batches, instead of
+ * posting a separate user interface event for each PKG. Each batch is inserted while the table's redrawing is
+ * disabled. The batch size adapts to the time the user interface thread actually needs, so that a batch fits into
+ * about one frame and the window stays responsive during bulk imports.
+ */
+public class TableUpdatePump {
+	private static final long FRAME_BUDGET = 16_000_000; // Nanoseconds of UI thread time per batch.
+	private static final int FRAME_INTERVAL = 16; // Milliseconds between batches.
+	private static final int MIN_BATCH_SIZE = 1;
+	private static final int MAX_BATCH_SIZE = 4096;
+
+	private final TabContent tabContent;
+	private final Consumer<TableItemData[]> inserter;
+	private final ArrayDeque<TableItemData> pending = new ArrayDeque<>();
+	private boolean isScheduled;
+	private int batchSize = 64;
+
+	public TableUpdatePump(TabContent tabContent) {
+		this(tabContent, tabContent::processNewTableItemData);
+	}
+
+	/** Creates a pump that inserts its batches with the specified TabContent method. */
+	public TableUpdatePump(TabContent tabContent, Consumer<TableItemData[]> inserter) {
+		this.tabContent = tabContent;
+		this.inserter = inserter;
+	}
+
+	/** Queues data for insertion. May be called from any thread. */
+	public void push(TableItemData data) {
+		synchronized (this) {
+			pending.add(data);
+			if (isScheduled)
+				return;
+			isScheduled = true;
+		}
+		Display.getDefault().asyncExec(this::runBatch);
+	}
+
+	/** Returns true if there is data that has not been inserted yet. */
+	public synchronized boolean hasPendingData() {
+		return !pending.isEmpty();
+	}
+
+	private synchronized TableItemData[] takeBatch(int size) {
+		TableItemData[] batch = new TableItemData[Math.min(size, pending.size())];
+		for (int i = 0; i < batch.length; i++)
+			batch[i] = pending.remove();
+		return batch;
+	}
+
+	// Runs on the user interface thread.
+	private void insert(TableItemData[] batch) {
+		if (batch.length == 0 || tabContent.isDisposed())
+			return;
+
+		tabContent.getTable().setRedraw(false);
+		inserter.accept(batch);
+		tabContent.getTable().setRedraw(true);
+	}
+
+	// Runs on the user interface thread.
+	private void runBatch() {
+		long start = System.nanoTime();
+		TableItemData[] batch = takeBatch(batchSize);
+		insert(batch);
+		long elapsed = System.nanoTime() - start;
+
+		// Adapt the batch size to the measured time.
+		if (batch.length == batchSize) {
+			if (elapsed < FRAME_BUDGET / 2)
+				batchSize = Math.min(MAX_BATCH_SIZE, batchSize * 2);
+			else if (elapsed > FRAME_BUDGET)
+				batchSize = (int) Math.max(MIN_BATCH_SIZE, batchSize * FRAME_BUDGET / elapsed);
+		}
+
+		synchronized (this) {
+			if (pending.isEmpty()) {
+				isScheduled = false;
+				return;
+			}
+		}
+		// Leave the remaining frame time to other user interface events.
+		Display.getDefault().timerExec(FRAME_INTERVAL, this::runBatch);
+	}
+
+	/** Inserts all pending data right now. Must be called from the user interface thread. */
+	public void flush() {
+		insert(takeBatch(Integer.MAX_VALUE));
+	}
+}
@@ -0,0 +1,124 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds any number of patterns in a text in a single pass (Aho-Corasick), ignoring case. Each pattern belongs to a tag,
+ * and several patterns can belong to the same tag (e.g. aliases). Immutable and thread-safe once built.
+ */
+class TagMatcher {
+	private static final int ROOT = 0;
+
+	private final int tagCount;
+	private final char[] alphabet; // Sorted distinct (lower-case) characters of all patterns.
+	private final int[] asciiColumns = new int[128]; // Shortcut for getColumn(), which ASCII text is mostly made of.
+	private final int[] transitions; // State * (alphabet.length + 1) + column -> next state; column 0: other chars.
+	private final int[][] outputs; // State -> tags of all patterns that end here, including via failure links.
+
+	/**
+	 * Builds a matcher.
+	 *
+	 * @param patterns the patterns to search for; empty patterns are ignored
+	 * @param tags     the tag of each pattern, from 0 to tagCount - 1
+	 */
+	TagMatcher(List<String> patterns, int[] tags, int tagCount) {
+		this.tagCount = tagCount;
+
+		// Build the trie.
+		ArrayList<HashMap<Character, Integer>> children = new ArrayList<>();
+		ArrayList<ArrayList<Integer>> stateOutputs = new ArrayList<>();
+		children.add(new HashMap<>());
+		stateOutputs.add(new ArrayList<>());
+		StringBuilder characters = new StringBuilder();
+		for (int i = 0; i < patterns.size(); i++) {
+			String pattern = patterns.get(i);
+			if (pattern.isEmpty())
+				continue;
+			int state = ROOT;
+			for (int j = 0; j < pattern.length(); j++) {
+				char c = Character.toLowerCase(pattern.charAt(j));
+				characters.append(c);
+				Integer next = children.get(state).get(c);
+				if (next == null) {
+					next = children.size();
+					children.add(new HashMap<>());
+					stateOutputs.add(new ArrayList<>());
+					children.get(state).put(c, next);
+				}
+				state = next;
+			}
+			stateOutputs.get(state).add(tags[i]);
+		}
+		char[] allCharacters = characters.toString().toCharArray();
+		Arrays.sort(allCharacters);
+		StringBuilder distinctCharacters = new StringBuilder();
+		for (int i = 0; i < allCharacters.length; i++)
+			if (i == 0 || allCharacters[i] != allCharacters[i - 1])
+				distinctCharacters.append(allCharacters[i]);
+		this.alphabet = distinctCharacters.toString().toCharArray();
+		for (char c = 0; c < asciiColumns.length; c++)
+			asciiColumns[c] = findColumn(c);
+
+		// Turn the trie into a complete automaton, breadth first, so that each state's failure state is done already.
+		int columns = alphabet.length + 1;
+		int stateCount = children.size();
+		this.transitions = new int[stateCount * columns];
+		int[] failures = new int[stateCount];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		queue.add(ROOT);
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			if (state != ROOT)
+				stateOutputs.get(state).addAll(stateOutputs.get(failures[state]));
+			for (int column = 1; column < columns; column++) {
+				Integer child = children.get(state).get(alphabet[column - 1]);
+				if (child == null)
+					transitions[state * columns + column] = state == ROOT ? ROOT
+						: transitions[failures[state] * columns + column];
+				else {
+					failures[child] = state == ROOT ? ROOT : transitions[failures[state] * columns + column];
+					transitions[state * columns + column] = child;
+					queue.add(child);
+				}
+			}
+		}
+
+		this.outputs = new int[stateCount][];
+		for (int state = 0; state < stateCount; state++)
+			outputs[state] = stateOutputs.get(state).stream().mapToInt(Integer::intValue).distinct().toArray();
+	}
+
+	// Returns the transition table column of a character.
+	private int getColumn(char c) {
+		return c < asciiColumns.length ? asciiColumns[c] : findColumn(c);
+	}
+
+	private int findColumn(char c) {
+		int index = Arrays.binarySearch(alphabet, Character.toLowerCase(c));
+		return index < 0 ? 0 : index + 1;
+	}
+
+	/**
+	 * Searches a text and marks the tags whose patterns it contains.
+	 *
+	 * @param found is set to true at each found tag's index; other values are left unchanged
+	 */
+	void match(CharSequence text, boolean[] found) {
+		int columns = alphabet.length + 1;
+		int state = ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			state = transitions[state * columns + getColumn(text.charAt(i))];
+			for (int tag : outputs[state])
+				found[tag] = true;
+		}
+	}
+
+	/** Returns the tags whose patterns a text contains, indexed by tag. */
+	boolean[] match(CharSequence text) {
+		boolean[] found = new boolean[tagCount];
+		match(text, found);
+		return found;
+	}
+}
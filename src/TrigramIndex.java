@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * An inverted index of the trigrams (3-character substrings) of a tab's searchable texts: file name, title, title ID,
+ * content ID and release tags, in lower case. Looking up a query's rarest trigram yields a small set of candidate rows
+ * that may contain the query, so that a search does not have to scan all rows; the candidates still have to be
+ * checked. Thread-safe.
+ */
+class TrigramIndex {
+	static final int N = 3; // Shorter queries can't be looked up.
+
+	private static final int MIN_COMPACTION_COUNT = 1024; // Removed rows.
+	private static final int INITIAL_CAPACITY = 1024; // Of the hash table; must be a power of 2.
+
+	// A trigram's rows, sorted by ID, i.e. in the order in which they were added. May contain the IDs of removed rows.
+	private static class Postings {
+		int[] ids = new int[4];
+		int size;
+
+		void add(int id) {
+			if (size == ids.length)
+				ids = Arrays.copyOf(ids, size * 2);
+			ids[size++] = id;
+		}
+	}
+
+	// Trigram key -> postings, as an open-addressing hash table with linear probing; key 0 marks empty slots.
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private Postings[] postings = new Postings[INITIAL_CAPACITY];
+	private int keyCount;
+	private final ArrayList<TableItemData> rows = new ArrayList<>(); // ID -> row; null if removed.
+	private final IdentityHashMap<TableItemData, Integer> ids = new IdentityHashMap<>();
+	private int removedCount; // Until the next compaction.
+	private long[] scratch = new long[256];
+
+	// Packs the trigram that starts at the specified index. The packed characters are scrambled, so that the key's high
+	// bits can be used as hash code. Scrambling can be reversed, so keys stay unique, and they are never 0.
+	private static long getKey(String s, int index) {
+		return (1L << 48 | (long) s.charAt(index) << 32 | (long) s.charAt(index + 1) << 16 | s.charAt(index + 2))
+			* 0x9E3779B97F4A7C15L;
+	}
+
+	// Returns the slot of a key in the hash table, which is either the key's or an empty one.
+	private int getSlot(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) (key >>> 32) & mask;
+		while (keys[slot] != key && keys[slot] != 0)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	// Returns a trigram's postings, creating them if necessary.
+	private Postings getOrCreatePostings(long key) {
+		int slot = getSlot(key);
+		if (keys[slot] == 0) {
+			if (keyCount * 2 >= keys.length) { // Keep the load factor below 0.5.
+				long[] oldKeys = keys;
+				Postings[] oldPostings = postings;
+				keys = new long[oldKeys.length * 2];
+				postings = new Postings[oldKeys.length * 2];
+				for (int i = 0; i < oldKeys.length; i++)
+					if (oldKeys[i] != 0) {
+						int newSlot = getSlot(oldKeys[i]);
+						keys[newSlot] = oldKeys[i];
+						postings[newSlot] = oldPostings[i];
+					}
+				slot = getSlot(key);
+			}
+			keys[slot] = key;
+			postings[slot] = new Postings();
+			keyCount++;
+		}
+		return postings[slot];
+	}
+
+	// Returns the texts of a row that are searched by the filter.
+	static String[] getSearchTexts(TableItemData data) {
+		return new String[] { data.pkg().filename, data.title(), data.summary().titleID(), data.pkg().header.content_id,
+			data.releaseTags() };
+	}
+
+	/** Adds a row. */
+	synchronized void add(TableItemData data) {
+		if (ids.containsKey(data))
+			return;
+		int id = rows.size();
+		rows.add(data);
+		ids.put(data, id);
+		addPostings(data, id);
+	}
+
+	private void addPostings(TableItemData data, int id) {
+		// Collect the row's distinct trigrams.
+		int count = 0;
+		for (String text : getSearchTexts(data)) {
+			if (text == null)
+				continue;
+			text = text.toLowerCase();
+			for (int i = 0; i + N <= text.length(); i++) {
+				if (count == scratch.length)
+					scratch = Arrays.copyOf(scratch, count * 2);
+				scratch[count++] = getKey(text, i);
+			}
+		}
+		Arrays.sort(scratch, 0, count);
+
+		for (int i = 0; i < count; i++)
+			if (i == 0 || scratch[i] != scratch[i - 1])
+				getOrCreatePostings(scratch[i]).add(id);
+	}
+
+	/** Removes a row. The index is rebuilt once many rows have been removed. */
+	synchronized void remove(TableItemData data) {
+		Integer id = ids.remove(data);
+		if (id == null)
+			return;
+		rows.set(id, null);
+		if (++removedCount >= MIN_COMPACTION_COUNT && removedCount > ids.size())
+			compact();
+	}
+
+	// Rebuilds the index from the remaining rows, dropping the IDs of removed rows.
+	private void compact() {
+		ArrayList<TableItemData> remaining = new ArrayList<>(ids.size());
+		for (TableItemData data : rows)
+			if (data != null)
+				remaining.add(data);
+		keys = new long[INITIAL_CAPACITY];
+		postings = new Postings[INITIAL_CAPACITY];
+		keyCount = 0;
+		rows.clear();
+		ids.clear();
+		removedCount = 0;
+		for (TableItemData data : remaining)
+			add(data);
+	}
+
+	/**
+	 * Returns the rows that contain all trigrams of a (lower-case) query, in no particular order. The work depends on
+	 * the number of rows that contain the query's rarest trigram, not on the total number of rows.
+	 *
+	 * @return the candidates, or null if the query is shorter than N characters
+	 */
+	synchronized TableItemData[] getCandidates(String query) {
+		if (query.length() < N)
+			return null;
+
+		ArrayList<Postings> lists = new ArrayList<>();
+		for (int i = 0; i + N <= query.length(); i++) {
+			Postings p = postings[getSlot(getKey(query, i))];
+			if (p == null)
+				return new TableItemData[0];
+			lists.add(p);
+		}
+		lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+		// Intersect the rarest trigram's rows with the other trigrams' rows.
+		ArrayList<TableItemData> candidates = new ArrayList<>();
+		Postings rarest = lists.get(0);
+		for (int i = 0; i < rarest.size; i++) {
+			int id = rarest.ids[i];
+			TableItemData data = rows.get(id);
+			if (data == null)
+				continue;
+			boolean isCandidate = true;
+			for (int j = 1; j < lists.size() && isCandidate; j++)
+				isCandidate = Arrays.binarySearch(lists.get(j).ids, 0, lists.get(j).size, id) >= 0;
+			if (isCandidate)
+				candidates.add(data);
+		}
+		return candidates.toArray(new TableItemData[0]);
+	}
+}
@@ -12,7 +12,9 @@ import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -20,7 +22,6 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.swt.widgets.Display;
-import org.eclipse.swt.widgets.TableItem;
 
 class SynchronizedDirectory {
 	String dir;
@@ -118,12 +119,13 @@ public class WatcherThread extends Thread {
 
 				// If something was deleted...
 				if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
-					if (hasValidFileNameExtension(name))
+					if (hasValidFileNameExtension(name)) {
+						PartialDownloads.remove(path.toString());
 						Display.getDefault().asyncExec(() -> {
 							if (!tabContent.isDisposed())
 								tabContent.removeFile(path.toString());
 						});
-					else if (removeWatchKey(path.toString()) == true)
+					} else if (removeWatchKey(path.toString()) == true)
 						// ...in which case remove all PKG files from the table that have that directory as a parent.
 						Display.getDefault().asyncExec(() -> {
 							if (!tabContent.isDisposed())
@@ -133,8 +135,12 @@ public class WatcherThread extends Thread {
 					// TODO: corner case where the user has made one of his directories end with a file extension.
 				}
 
-				// Add newly created or modified PKG files to the tab's table.
+				// Add newly created or modified PKG files to the tab's table, unless they are incomplete downloads that
+				// are parsed again later anyway.
 				if (hasValidFileNameExtension(name) && Files.isRegularFile(path)) {
+					if (PartialDownloads.isScheduled(path.toString()))
+						continue;
+
 					// Get file size.
 					long fileSize;
 					try {
@@ -150,7 +156,6 @@ public class WatcherThread extends Thread {
 
 					if (!tabContent.isDisposed())
 						tabContent.addFile(path.toString());
-					// TODO: adding the file each time it is modified is kind of inefficient.
 					continue;
 				}
 
@@ -275,6 +280,9 @@ public class WatcherThread extends Thread {
 	 * SynchronizedDirectory. The directory must exist. This method is supposed to run one time before the WatchService
 	 * starts, or later when a SynchronizedDirectory that was initially not existing (i.e. because it was not mounted)
 	 * is seen by the DirChecker thread in run().
+	 * <p>
+	 * Only new files and files whose size, modification time or file key have changed are parsed; the others are
+	 * merely stat-ed.
 	 */
 	private void synchronizePkgFiles(SynchronizedDirectory syncedDir) {
 		ArrayList<String> files = new ArrayList<>();
@@ -312,22 +320,36 @@ public class WatcherThread extends Thread {
 				dirs.addAll(subdirs);
 			}
 
+			// Stat the files here, so that the GUI thread only has to compare the results.
+			HashMap<String, BasicFileAttributes> attributes = new HashMap<>();
+			for (String file : files)
+				try {
+					attributes.put(file, Files.readAttributes(Paths.get(file), BasicFileAttributes.class));
+				} catch (IOException e) { // Let the parser deal with it.
+					attributes.put(file, null);
+				}
+
 			// Send the GUI work to the GUI thread.
 			Display.getDefault().asyncExec(() -> {
 				if (tabContent.isDisposed())
 					return;
 
-				// Add all found PKG files to the list.
-				for (String file : files)
-					tabContent.addFile(file);
+				// Add all found PKG files to the list that are new or have changed.
+				for (String file : files) {
+					PS4PKG pkg = tabContent.getPkg(file);
+					BasicFileAttributes fileAttributes = attributes.get(file);
+					if (pkg == null || fileAttributes == null || !pkg.isUnchanged(fileAttributes))
+						tabContent.addFile(file);
+				}
 
 				// Remove PKGs that don't exist anymore from the list.
-				TableItem[] items = tabContent.getTable().getItems();
-				PS4PKG[] pkgs = tabContent.getPkgs(items);
-				for (int i = 0; i < items.length; i++)
-					for (String dir : dirs)
-						if (pkgs[i].directory.equals(dir) && !pkgs[i].exists())
-							tabContent.removeTableItem(items[i]);
+				HashSet<String> foundFiles = new HashSet<>(files);
+				HashSet<String> dirSet = new HashSet<>(dirs);
+				ArrayList<PS4PKG> removedPkgs = new ArrayList<>();
+				for (PS4PKG pkg : tabContent.getPkgs())
+					if (dirSet.contains(pkg.directory) && !foundFiles.contains(pkg.path) && !pkg.exists())
+						removedPkgs.add(pkg);
+				tabContent.removePkgs(removedPkgs.toArray(new PS4PKG[0]));
 			});
 
 			return;